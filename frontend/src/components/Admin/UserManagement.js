@@ -23,6 +23,8 @@ import {
 } from '@mui/material';
 import {fetchWithSessionCheck} from '../../utils/sessionUtils';
 
+const PAGE_SIZE = 50;
+
 const UserManagement = () => {
     const [users, setUsers] = useState([]);
     const [loading, setLoading] = useState(true);
@@ -32,9 +34,15 @@ const UserManagement = () => {
     const [deleteDialogOpen, setDeleteDialogOpen] = useState(false);
     const [deleteSuccess, setDeleteSuccess] = useState(null);
     const [selectedRole, setSelectedRole] = useState('');
-    const fetchUsers = async () => {
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
+    const fetchUsers = async (afterId = null) => {
+        const params = new URLSearchParams({limit: String(PAGE_SIZE)});
+        if (afterId !== null) {
+            params.set('afterId', String(afterId));
+        }
         try {
-            const response = await fetchWithSessionCheck('/api/users/all', {
+            const response = await fetchWithSessionCheck(`/api/users/all?${params}`, {
                 headers: {
                     'Accept': 'application/json'
                 }
@@ -57,17 +65,27 @@ const UserManagement = () => {
                 throw new Error('Invalid data format received from server');
             }
 
-            setUsers(data);
+            const cursor = response.headers.get('X-Next-Cursor');
+            setUsers(previous => afterId !== null ? [...previous, ...data] : data);
+            setNextCursor(cursor ? Number(cursor) : null);
             setError(null);
         } catch (err) {
             console.error('Error fetching users:', err);
             setError(err.message);
-            setUsers([]);
+            if (afterId === null) {
+                setUsers([]);
+            }
         } finally {
             setLoading(false);
         }
     };
 
+    const handleLoadMore = async () => {
+        setLoadingMore(true);
+        await fetchUsers(nextCursor);
+        setLoadingMore(false);
+    };
+
     useEffect(() => {
         fetchUsers();
     }, []);
@@ -244,7 +262,14 @@ const UserManagement = () => {
                     ))}
                 </TableBody>
             </Table>
-        </TableContainer> <Dialog
+        </TableContainer>
+            {nextCursor !== null && (
+                <Box display="flex" justifyContent="center" sx={{mt: 2}}>
+                    <Button variant="outlined" onClick={handleLoadMore} disabled={loadingMore}>
+                        {loadingMore ? 'Loading...' : 'Load more'}
+                    </Button>
+                </Box>
+            )} <Dialog
             open={dialogOpen}
             onClose={() => setDialogOpen(false)}
             fullScreen={window.innerWidth < 600}
@@ -1,4 +1,4 @@
-import React, {useEffect, useState} from 'react';
+import React, {useCallback, useEffect, useState} from 'react';
 import {useNavigate} from 'react-router-dom';
 import {fetchWithSessionCheck} from '../../services/auth';
 import {Container, Typography} from '@mui/material';
@@ -7,6 +7,7 @@ import ContentFilter from '../UI/ContentFilter';
 import ReviewGrid from '../UI/ReviewGrid';
 
 const CONTENT_TYPES = ['All', 'movie', 'tvseries', 'game', 'book'];
+const LATEST_LIMIT = 25;
 
 const Home = () => {
     const [reviews, setReviews] = useState([]);
@@ -16,46 +17,80 @@ const Home = () => {
     const [reviewUsernames, setReviewUsernames] = useState({});
     const [selectedType, setSelectedType] = useState('All');
     const navigate = useNavigate();
-    useEffect(() => {
-        const fetchLatestReviews = async () => {
-            try {
-                const response = await fetchWithSessionCheck('/api/reviews/latest', {
+
+    const fetchLatestReviews = useCallback(async () => {
+        try {
+            const response = await fetchWithSessionCheck('/api/reviews/latest', {
+                headers: {
+                    'Accept': 'application/json'
+                }
+            });
+            const data = await response.json();
+
+            if (!response.ok) {
+                throw new Error(data.error || 'Failed to fetch reviews');
+            }
+
+            setReviews(data);
+            setFilteredReviews(data);
+
+            const usernamePromises = data.map(review =>
+                fetchWithSessionCheck(`/api/users/${review.userID}`, {
                     headers: {
                         'Accept': 'application/json'
                     }
-                });
-                const data = await response.json();
+                }).then(res => res.json())
+            );
+
+            const users = await Promise.all(usernamePromises);
+            const usernameMap = {};
+            data.forEach((review, index) => {
+                usernameMap[review.userID] = users[index].username;
+            });
+            setReviewUsernames(usernameMap);
+        } catch (err) {
+            setError(err.message);
+        } finally {
+            setLoading(false);
+        }
+    }, []);
 
-                if (!response.ok) {
-                    throw new Error(data.error || 'Failed to fetch reviews');
+    useEffect(() => {
+        fetchLatestReviews();
+    }, [fetchLatestReviews]);
+
+    useEffect(() => {
+        const source = new EventSource('/api/reviews/stream', {withCredentials: true});
+
+        source.addEventListener('review', (event) => {
+            const change = JSON.parse(event.data);
+
+            setReviews(current => {
+                const others = current.filter(review => review.reviewID !== change.reviewId);
+                if (change.type === 'DELETED') {
+                    return others;
+                }
+                if (change.type === 'CREATED') {
+                    return [change.review, ...others].slice(0, LATEST_LIMIT);
                 }
+                return current.map(review => review.reviewID === change.reviewId ? change.review : review);
+            });
 
-                setReviews(data);
-                setFilteredReviews(data);
-
-                const usernamePromises = data.map(review =>
-                    fetchWithSessionCheck(`/api/users/${review.userID}`, {
-                        headers: {
-                            'Accept': 'application/json'
-                        }
-                    }).then(res => res.json())
-                );
-
-                const users = await Promise.all(usernamePromises);
-                const usernameMap = {};
-                data.forEach((review, index) => {
-                    usernameMap[review.userID] = users[index].username;
-                });
-                setReviewUsernames(usernameMap);
-            } catch (err) {
-                setError(err.message);
-            } finally {
-                setLoading(false);
+            if (change.type === 'CREATED') {
+                fetchWithSessionCheck(`/api/users/${change.userId}`, {
+                    headers: {
+                        'Accept': 'application/json'
+                    }
+                })
+                    .then(res => res.json())
+                    .then(user => setReviewUsernames(current => ({...current, [change.userId]: user.username})))
+                    .catch(() => {});
             }
-        };
+        });
+        source.addEventListener('reset', () => fetchLatestReviews());
 
-        fetchLatestReviews();
-    }, []);
+        return () => source.close();
+    }, [fetchLatestReviews]);
 
     useEffect(() => {
         if (!reviews) return;
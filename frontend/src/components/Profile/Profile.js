@@ -112,6 +112,20 @@ const Profile = () => {
                         <Typography variant="h6">Role</Typography>
                         <Typography paragraph>{userData.role}</Typography>
 
+                        {userData.stats && (
+                            <>
+                                <Typography variant="h6">Activity</Typography>
+                                <Typography paragraph>
+                                    {userData.stats.reviewCount} reviews
+                                    · {userData.stats.favoritesGiven} favorites given
+                                    · {userData.stats.favoritesReceived} favorites received
+                                    {userData.stats.lastActivity && (
+                                        <> · last active {new Date(userData.stats.lastActivity).toLocaleString()}</>
+                                    )}
+                                </Typography>
+                            </>
+                        )}
+
                         {userData.role !== 'ROLE_ADMIN' && (
                             <Box sx={{mt: 3}}>
                                 <Button
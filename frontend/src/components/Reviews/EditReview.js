@@ -14,6 +14,7 @@ const EditReview = () => {
         cover: null
     });
     const [currentCover, setCurrentCover] = useState(null);
+    const [etag, setEtag] = useState(null);
     const [error, setError] = useState(null);
     const [loading, setLoading] = useState(true);
     const [submitting, setSubmitting] = useState(false);
@@ -32,6 +33,7 @@ const EditReview = () => {
                 }
 
                 const reviewData = await response.json();
+                setEtag(response.headers.get('ETag'));
                 setInitialValues({
                     contentType: reviewData.contentType,
                     contentTitle: reviewData.contentTitle,
@@ -65,9 +67,14 @@ const EditReview = () => {
         try {
             const response = await fetchWithSessionCheck(`/api/reviews/${reviewId}`, {
                 method: 'PUT',
+                headers: etag ? {'If-Match': etag} : {},
                 body: data
             });
 
+            if (response.status === 412) {
+                throw new Error('This review was changed in the meantime. Reload the page and apply your changes again.');
+            }
+
             if (!response.ok) {
                 const errorData = await response.json();
                 throw new Error(errorData.message || 'Failed to update review');
@@ -8,13 +8,16 @@ const FavoriteReviews = () => {
     const [favoriteReviews, setFavoriteReviews] = useState([]);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     useEffect(() => {
         const fetchFavoriteReviews = async () => {
             try {
                 setLoading(true);
                 setError(null);
-                const reviews = await favoritesAPI.getUserFavorites();
-                setFavoriteReviews(reviews);
+                const page = await favoritesAPI.getUserFavorites();
+                setFavoriteReviews(page.reviews);
+                setNextCursor(page.nextCursor);
             } catch (error) {
                 console.error('Error fetching favorite reviews:', error);
                 if (error.message.includes('401') || error.message.includes('unauthorized')) {
@@ -29,6 +32,20 @@ const FavoriteReviews = () => {
 
         fetchFavoriteReviews();
     }, []);
+    const loadMore = async () => {
+        try {
+            setLoadingMore(true);
+            const page = await favoritesAPI.getUserFavorites(nextCursor);
+            setFavoriteReviews(prevReviews => [...prevReviews, ...page.reviews]);
+            setNextCursor(page.nextCursor);
+        } catch (error) {
+            console.error('Error fetching more favorite reviews:', error);
+            setError('Failed to load favorite reviews');
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const handleReviewUpdate = (updatedReview) => {
         setFavoriteReviews(prevReviews =>
             prevReviews.map(review =>
@@ -80,7 +97,7 @@ const FavoriteReviews = () => {
                 <p className="favorite-count">
                     {favoriteReviews.length === 0
                         ? 'No favorite reviews yet'
-                        : `${favoriteReviews.length} favorite review${favoriteReviews.length !== 1 ? 's' : ''}`
+                        : `${favoriteReviews.length}${nextCursor !== null ? '+' : ''} favorite review${favoriteReviews.length !== 1 ? 's' : ''}`
                     }
                 </p>
             </div>
@@ -104,6 +121,14 @@ const FavoriteReviews = () => {
                     ))}
                 </div>
             )}
+
+            {nextCursor !== null && (
+                <div className="favorite-reviews-load-more">
+                    <button onClick={loadMore} disabled={loadingMore}>
+                        {loadingMore ? 'Loading...' : 'Load more'}
+                    </button>
+                </div>
+            )}
         </div>
     );
 };
@@ -28,6 +28,7 @@ const ReviewDetail = () => {
     const [currentUser, setCurrentUser] = useState(null);
     const [deleteDialogOpen, setDeleteDialogOpen] = useState(false);
     const [success, setSuccess] = useState(null);
+    const [recommendations, setRecommendations] = useState([]);
     useEffect(() => {
         const fetchCurrentUser = async () => {
             try {
@@ -89,8 +90,24 @@ const ReviewDetail = () => {
             }
         };
 
+        const fetchRecommendations = async () => {
+            try {
+                const response = await fetchWithSessionCheck(`/api/reviews/${reviewId}/recommendations?limit=6`, {
+                    headers: {
+                        'Accept': 'application/json'
+                    }
+                });
+                if (response.ok) {
+                    setRecommendations(await response.json());
+                }
+            } catch (err) {
+                console.error('Error fetching recommendations:', err);
+            }
+        };
+
         fetchCurrentUser();
         fetchReviewDetails();
+        fetchRecommendations();
     }, [reviewId]);
     const handleDelete = async () => {
         try {
@@ -218,7 +235,7 @@ const ReviewDetail = () => {
                         objectFit: 'contain',
                         bgcolor: 'black'
                     }}
-                    image={`/uploads/${review.coverFile}`}
+                    image={`/covers/${review.coverFile}?size=full`}
                     alt={review.contentTitle}
                 />
             )}
@@ -242,6 +259,42 @@ const ReviewDetail = () => {
                 </Typography>
             </CardContent> </Card>
 
+            {recommendations.length > 0 && (
+                <Box sx={{mt: 4}}>
+                    <Typography variant="h6" gutterBottom>
+                        Users who favorited this also favorited
+                    </Typography>
+                    {recommendations.map(recommendation => (
+                        <Card key={recommendation.reviewId} sx={{mb: 1}}>
+                            <CardContent sx={{display: 'flex', alignItems: 'center', gap: 2}}>
+                                {recommendation.coverFile && (
+                                    <CardMedia
+                                        component="img"
+                                        sx={{width: 48, height: 72, objectFit: 'cover'}}
+                                        image={`/covers/${recommendation.coverFile}?size=thumb`}
+                                        alt={recommendation.contentTitle}
+                                    />
+                                )}
+                                <Box>
+                                    <Typography variant="body2" color="text.secondary" sx={{textTransform: 'uppercase'}}>
+                                        {recommendation.contentType}
+                                    </Typography>
+                                    <Typography
+                                        variant="subtitle1"
+                                        component={Link}
+                                        to={`/review/${recommendation.reviewId}`}
+                                        sx={{color: 'inherit', '&:hover': {color: 'primary.main'}}}
+                                    >
+                                        {recommendation.contentTitle}
+                                        {recommendation.reviewTitle && ` - ${recommendation.reviewTitle}`}
+                                    </Typography>
+                                </Box>
+                            </CardContent>
+                        </Card>
+                    ))}
+                </Box>
+            )}
+
             <Dialog open={deleteDialogOpen} onClose={() => setDeleteDialogOpen(false)}>
                 <DialogTitle>Confirm Delete Review</DialogTitle>
                 <DialogContent>
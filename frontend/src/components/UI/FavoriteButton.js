@@ -9,13 +9,10 @@ const FavoriteButton = ({reviewId, className = '', onFavoriteChange}) => {
     useEffect(() => {
         const checkFavoriteStatus = async () => {
             try {
-                const [statusResponse, countResponse] = await Promise.all([
-                    favoritesAPI.checkFavoriteStatus(reviewId),
-                    favoritesAPI.getFavoriteCount(reviewId)
-                ]);
+                const status = await favoritesAPI.loadFavoriteStatus(Number(reviewId));
 
-                setIsFavorited(statusResponse.isFavorited);
-                setFavoriteCount(countResponse.favoriteCount);
+                setIsFavorited(status.isFavorited);
+                setFavoriteCount(status.favoriteCount);
             } catch (error) {
                 console.error('Error checking favorite status:', error);
             }
@@ -31,12 +28,15 @@ const FavoriteButton = ({reviewId, className = '', onFavoriteChange}) => {
 
         setLoading(true);
         try {
-            const response = await favoritesAPI.toggleFavorite(reviewId);
+            // Setting the intended state instead of toggling keeps double clicks and retries harmless
+            const response = await favoritesAPI.setFavorite(reviewId, !isFavorited);
             setIsFavorited(response.isFavorited);
 
-            setFavoriteCount(prevCount =>
-                response.isFavorited ? prevCount + 1 : prevCount - 1
-            );
+            if (response.changed) {
+                setFavoriteCount(prevCount =>
+                    response.isFavorited ? prevCount + 1 : prevCount - 1
+                );
+            }
 
             if (onFavoriteChange && !response.isFavorited) {
                 onFavoriteChange(reviewId);
@@ -127,7 +127,7 @@ const ReviewCard = ({
                             objectFit: 'cover',
                             objectPosition: 'center'
                         }}
-                        image={`/uploads/${review.coverFile}`}
+                        image={`/covers/${review.coverFile}?size=card`}
                         alt={review.contentTitle}
                     />
                 ) : (
@@ -1,5 +1,17 @@
-import React, {useState} from 'react';
-import {Alert, Box, Button, CircularProgress, Container, MenuItem, Paper, TextField, Typography} from '@mui/material';
+import React, {useEffect, useState} from 'react';
+import {
+    Alert,
+    Autocomplete,
+    Box,
+    Button,
+    CircularProgress,
+    Container,
+    MenuItem,
+    Paper,
+    TextField,
+    Typography
+} from '@mui/material';
+import {autocompleteAPI} from '../../services/autocomplete';
 
 /**
  * Component for adding or editing reviews
@@ -22,9 +34,38 @@ const ReviewForm = ({
                     }) => {
     const [formData, setFormData] = useState(initialValues);
     const [previewUrl, setPreviewUrl] = useState(
-        currentCover ? `/uploads/${currentCover}` : null
+        currentCover ? `/covers/${currentCover}?size=card` : null
     );
 
+    const [titleSuggestions, setTitleSuggestions] = useState([]);
+
+    useEffect(() => {
+        const query = formData.contentTitle.trim();
+        if (!query) {
+            setTitleSuggestions([]);
+            return;
+        }
+
+        let active = true;
+        const timeout = setTimeout(async () => {
+            try {
+                const suggestions = await autocompleteAPI.completeTitles(query);
+                if (active) {
+                    setTitleSuggestions(suggestions);
+                }
+            } catch (err) {
+                if (active) {
+                    setTitleSuggestions([]);
+                }
+            }
+        }, 150);
+
+        return () => {
+            active = false;
+            clearTimeout(timeout);
+        };
+    }, [formData.contentTitle]);
+
     const handleChange = (e) => {
         const {name, value} = e.target;
         setFormData(prev => ({
@@ -153,15 +194,26 @@ const ReviewForm = ({
                         <MenuItem value="game">Game</MenuItem>
                     </TextField>
 
-                    <TextField
-                        fullWidth
-                        required
-                        label="Content Title"
-                        name="contentTitle"
-                        value={formData.contentTitle}
-                        onChange={handleChange}
-                        margin="normal"
-                        variant="outlined"
+                    <Autocomplete
+                        freeSolo
+                        options={titleSuggestions}
+                        filterOptions={(options) => options}
+                        inputValue={formData.contentTitle}
+                        onInputChange={(event, value) => setFormData(prev => ({
+                            ...prev,
+                            contentTitle: value
+                        }))}
+                        renderInput={(params) => (
+                            <TextField
+                                {...params}
+                                fullWidth
+                                required
+                                label="Content Title"
+                                name="contentTitle"
+                                margin="normal"
+                                variant="outlined"
+                            />
+                        )}
                     />
 
                     <TextField
@@ -1,6 +1,7 @@
 import React, {useCallback, useEffect, useState} from 'react';
 import {useNavigate} from 'react-router-dom';
 import {
+    Autocomplete,
     Box,
     CircularProgress,
     Container,
@@ -17,14 +18,33 @@ import {
 import SearchIcon from '@mui/icons-material/Search';
 import ClearIcon from '@mui/icons-material/Clear';
 import {fetchWithSessionCheck} from '../../utils/sessionUtils';
+import {autocompleteAPI} from '../../services/autocomplete';
 
 const UserSearch = () => {
     const [searchTerm, setSearchTerm] = useState('');
     const [users, setUsers] = useState([]);
     const [loading, setLoading] = useState(false);
     const [error, setError] = useState(null);
+    const [suggestions, setSuggestions] = useState([]);
     const navigate = useNavigate();
 
+    useEffect(() => {
+        const query = searchTerm.trim();
+        if (!query) {
+            setSuggestions([]);
+            return;
+        }
+
+        let active = true;
+        autocompleteAPI.completeUsernames(query)
+            .then(result => active && setSuggestions(result))
+            .catch(() => active && setSuggestions([]));
+
+        return () => {
+            active = false;
+        };
+    }, [searchTerm]);
+
     const debouncedSearch = useCallback(
         debounce((term) => {
             if (term.trim()) {
@@ -105,30 +125,39 @@ const UserSearch = () => {
             </Typography>
 
             <Paper sx={{p: 2, mb: 2}}>
-                <TextField
-                    fullWidth
-                    variant="outlined"
-                    placeholder="Search users by username..."
-                    value={searchTerm}
-                    onChange={(e) => setSearchTerm(e.target.value)}
-                    onKeyPress={handleKeyPress}
-                    InputProps={{
-                        startAdornment: (
-                            <InputAdornment position="start">
-                                <IconButton onClick={handleSearch} disabled={loading}>
-                                    <SearchIcon/>
-                                </IconButton>
-                            </InputAdornment>
-                        ),
-                        endAdornment: searchTerm && (
-                            <InputAdornment position="end">
-                                <IconButton onClick={handleClear} disabled={loading}>
-                                    <ClearIcon/>
-                                </IconButton>
-                            </InputAdornment>
-                        )
-                    }}
+                <Autocomplete
+                    freeSolo
+                    options={suggestions}
+                    filterOptions={(options) => options}
+                    inputValue={searchTerm}
+                    onInputChange={(event, value) => setSearchTerm(value)}
                     disabled={loading}
+                    renderInput={(params) => (
+                        <TextField
+                            {...params}
+                            fullWidth
+                            variant="outlined"
+                            placeholder="Search users by username..."
+                            onKeyPress={handleKeyPress}
+                            InputProps={{
+                                ...params.InputProps,
+                                startAdornment: (
+                                    <InputAdornment position="start">
+                                        <IconButton onClick={handleSearch} disabled={loading}>
+                                            <SearchIcon/>
+                                        </IconButton>
+                                    </InputAdornment>
+                                ),
+                                endAdornment: searchTerm && (
+                                    <InputAdornment position="end">
+                                        <IconButton onClick={handleClear} disabled={loading}>
+                                            <ClearIcon/>
+                                        </IconButton>
+                                    </InputAdornment>
+                                )
+                            }}
+                        />
+                    )}
                 />
             </Paper>
 
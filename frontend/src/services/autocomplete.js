@@ -0,0 +1,26 @@
+import {fetchWithSessionCheck} from '../utils/sessionUtils';
+
+const complete = async (kind, query, limit) => {
+    const response = await fetchWithSessionCheck(
+        `/api/autocomplete/${kind}?q=${encodeURIComponent(query)}&limit=${limit}`, {
+            method: 'GET',
+            headers: {
+                'Accept': 'application/json'
+            },
+            credentials: 'include'
+        });
+
+    if (!response.ok) {
+        throw new Error('Failed to get suggestions');
+    }
+
+    const suggestions = await response.json();
+    return suggestions.map(suggestion => suggestion.text);
+};
+
+export const autocompleteAPI = {
+    completeTitles: (query, limit = 10) => complete('titles', query, limit),
+    completeUsernames: (query, limit = 10) => complete('users', query, limit)
+};
+
+export default autocompleteAPI;
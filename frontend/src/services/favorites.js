@@ -1,5 +1,11 @@
 import {fetchWithSessionCheck} from '../utils/sessionUtils';
 
+const STATUS_BATCH_SIZE = 200;
+
+// Review IDs requested by the cards of one render, answered together by a single status request
+let pendingStatusRequests = new Map();
+let statusFlushScheduled = false;
+
 export const favoritesAPI = {
     toggleFavorite: async (reviewId) => {
         try {
@@ -24,6 +30,28 @@ export const favoritesAPI = {
         }
     },
 
+    setFavorite: async (reviewId, favorited) => {
+        try {
+            const response = await fetchWithSessionCheck(`/api/favorites/${reviewId}`, {
+                method: favorited ? 'PUT' : 'DELETE',
+                headers: {
+                    'Accept': 'application/json'
+                },
+                credentials: 'include'
+            });
+
+            if (!response.ok) {
+                const error = await response.json();
+                throw new Error(error.error || 'Failed to update favorite');
+            }
+
+            return await response.json();
+        } catch (error) {
+            console.error('Error updating favorite:', error);
+            throw error;
+        }
+    },
+
     checkFavoriteStatus: async (reviewId) => {
         try {
             const response = await fetchWithSessionCheck(`/api/favorites/check/${reviewId}`, {
@@ -46,9 +74,10 @@ export const favoritesAPI = {
         }
     },
 
-    getUserFavorites: async () => {
+    getUserFavorites: async (before = null) => {
         try {
-            const response = await fetchWithSessionCheck('/api/favorites/my-favorites', {
+            const query = before !== null ? `?before=${before}` : '';
+            const response = await fetchWithSessionCheck(`/api/favorites/my-favorites${query}`, {
                 method: 'GET',
                 headers: {
                     'Accept': 'application/json'
@@ -61,13 +90,50 @@ export const favoritesAPI = {
                 throw new Error(error.error || 'Failed to get user favorites');
             }
 
-            return await response.json();
+            const nextCursor = response.headers.get('X-Next-Cursor');
+            return {
+                reviews: await response.json(),
+                nextCursor: nextCursor !== null ? Number(nextCursor) : null
+            };
         } catch (error) {
             console.error('Error getting user favorites:', error);
             throw error;
         }
     },
 
+    getFavoriteStatuses: async (reviewIds) => {
+        try {
+            const response = await fetchWithSessionCheck(`/api/favorites/status?reviewIds=${reviewIds.join(',')}`, {
+                method: 'GET',
+                headers: {
+                    'Accept': 'application/json'
+                },
+                credentials: 'include'
+            });
+
+            if (!response.ok) {
+                const error = await response.json();
+                throw new Error(error.error || 'Failed to get favorite statuses');
+            }
+
+            return await response.json();
+        } catch (error) {
+            console.error('Error getting favorite statuses:', error);
+            throw error;
+        }
+    },
+
+    loadFavoriteStatus: (reviewId) => new Promise((resolve, reject) => {
+        const waiting = pendingStatusRequests.get(reviewId) || [];
+        waiting.push({resolve, reject});
+        pendingStatusRequests.set(reviewId, waiting);
+
+        if (!statusFlushScheduled) {
+            statusFlushScheduled = true;
+            setTimeout(flushStatusRequests, 0);
+        }
+    }),
+
     getFavoriteCount: async (reviewId) => {
         try {
             const response = await fetchWithSessionCheck(`/api/favorites/count/${reviewId}`, {
@@ -91,4 +157,25 @@ export const favoritesAPI = {
     }
 };
 
+const flushStatusRequests = async () => {
+    const requests = pendingStatusRequests;
+    pendingStatusRequests = new Map();
+    statusFlushScheduled = false;
+
+    const reviewIds = [...requests.keys()];
+    for (let i = 0; i < reviewIds.length; i += STATUS_BATCH_SIZE) {
+        const batch = reviewIds.slice(i, i + STATUS_BATCH_SIZE);
+        try {
+            const statuses = await favoritesAPI.getFavoriteStatuses(batch);
+            const byReviewId = new Map(statuses.map(status => [status.reviewId, status]));
+            batch.forEach(reviewId => {
+                const status = byReviewId.get(reviewId) || {reviewId, isFavorited: false, favoriteCount: 0};
+                requests.get(reviewId).forEach(({resolve}) => resolve(status));
+            });
+        } catch (error) {
+            batch.forEach(reviewId => requests.get(reviewId).forEach(({reject}) => reject(error)));
+        }
+    }
+};
+
 export default favoritesAPI;
@@ -1,47 +1,46 @@
 package com.example.demo.controller;
 
-import com.example.demo.model.User;
-import com.example.demo.repository.ReviewRepository;
-import com.example.demo.repository.UserRepository;
+import com.example.demo.model.UserReviewCount;
+import com.example.demo.service.AdminUserListService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
-
-import java.util.List;
-import java.util.stream.Collectors;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @Controller
 @RequestMapping("/admin")
 @PreAuthorize("hasRole('ADMIN')")
 @RequiredArgsConstructor
 public class AdminController {
-    private final UserRepository userRepository;
-    private final ReviewRepository reviewRepository;
+    private final AdminUserListService adminUserListService;
 
     @GetMapping
-    public String adminPanel(Model model) {
-        List<User> users = userRepository.findAll();
-        long userCount = users.size();
-        long reviewCount = reviewRepository.count();
+    public String adminPanel(@RequestParam(defaultValue = "0") int page,
+                             @RequestParam(defaultValue = "50") int size,
+                             @RequestParam(defaultValue = "REVIEWS") AdminUserListService.SortField sort,
+                             @RequestParam(defaultValue = "DESC") Sort.Direction direction,
+                             Model model) {
+        AdminUserListService.UserOverview overview = adminUserListService.getUsers(page, size, sort, direction);
+        Page<UserReviewCount> users = overview.users();
+        long userCount = users.getTotalElements();
 
         long activeUsers = userCount;
 
-        var usersWithReviewCounts = users.stream()
-                .map(user -> {
-                    var reviewsCount = reviewRepository.findByUserID(user.getId()).size();
-                    user.setReviewCount(reviewsCount);
-                    return user;
-                })
-                .collect(Collectors.toList());
-
-        model.addAttribute("users", usersWithReviewCounts);
+        model.addAttribute("users", users.getContent());
         model.addAttribute("userCount", userCount);
-        model.addAttribute("reviewCount", reviewCount);
+        model.addAttribute("reviewCount", overview.reviewCount());
         model.addAttribute("activeUsers", activeUsers);
+        model.addAttribute("page", users.getNumber());
+        model.addAttribute("size", users.getSize());
+        model.addAttribute("totalPages", users.getTotalPages());
+        model.addAttribute("sort", sort);
+        model.addAttribute("direction", direction);
 
         return "admin";
     }
-}
\ No newline at end of file
+}
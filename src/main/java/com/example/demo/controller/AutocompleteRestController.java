@@ -0,0 +1,67 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.AutocompleteService;
+import com.example.demo.service.CompletionTrie;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/autocomplete")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+@Tag(name = "Autocomplete", description = "Suggestions for content titles and usernames")
+@SecurityRequirement(name = "bearerAuth")
+public class AutocompleteRestController {
+    private final AutocompleteService autocompleteService;
+
+    @Operation(summary = "Complete Content Title", description = "Content titles starting with the given text, ignoring case and accents. Titles with more reviews come first and are returned in their most used spelling.", tags = {"Autocomplete"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    [
+                        {
+                            "text": "The Matrix",
+                            "weight": 12
+                        },
+                        {
+                            "text": "The Matrix Reloaded",
+                            "weight": 4
+                        }
+                    ]
+                    """)))
+    })
+    @GetMapping("/titles")
+    public ResponseEntity<List<CompletionTrie.Completion>> completeTitles(
+            @Parameter(description = "Beginning of the title", required = true, example = "the ma") @RequestParam String q,
+            @Parameter(description = "Maximum number of suggestions (1-20)", example = "10") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(autocompleteService.completeTitles(q, limit));
+    }
+
+    @Operation(summary = "Complete Username", description = "Usernames starting with the given text, ignoring case.", tags = {"Autocomplete"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    [
+                        {
+                            "text": "john_doe",
+                            "weight": 1
+                        }
+                    ]
+                    """)))
+    })
+    @GetMapping("/users")
+    public ResponseEntity<List<CompletionTrie.Completion>> completeUsernames(
+            @Parameter(description = "Beginning of the username", required = true, example = "jo") @RequestParam String q,
+            @Parameter(description = "Maximum number of suggestions (1-20)", example = "10") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(autocompleteService.completeUsernames(q, limit));
+    }
+}
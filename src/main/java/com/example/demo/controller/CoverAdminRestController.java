@@ -0,0 +1,118 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.CoverByteCache;
+import com.example.demo.service.CoverGarbageCollector;
+import com.example.demo.service.CoverLayoutMigrationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/covers")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+@Tag(name = "Cover Administration", description = "APIs for maintaining stored cover images")
+public class CoverAdminRestController {
+
+    private final CoverLayoutMigrationService coverLayoutMigrationService;
+    private final CoverGarbageCollector coverGarbageCollector;
+    private final CoverByteCache coverByteCache;
+
+    @Operation(summary = "Start Layout Migration", description = "Move covers from the flat uploads directory into the sharded layout in the background. Requires admin privileges.")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Migration started"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required"),
+            @ApiResponse(responseCode = "409", description = "Migration already running")
+    })
+    @PostMapping("/migrate-layout")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CoverLayoutMigrationService.MigrationStatus> startLayoutMigration() {
+        if (!coverLayoutMigrationService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(coverLayoutMigrationService.getStatus());
+        }
+        log.info("Admin started cover layout migration");
+        return ResponseEntity.accepted().body(coverLayoutMigrationService.getStatus());
+    }
+
+    @Operation(summary = "Get Layout Migration Status", description = "Progress of the last cover layout migration. Requires admin privileges.")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status retrieved successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required")
+    })
+    @GetMapping("/migrate-layout")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CoverLayoutMigrationService.MigrationStatus> getLayoutMigrationStatus() {
+        return ResponseEntity.ok(coverLayoutMigrationService.getStatus());
+    }
+
+    @Operation(summary = "Start Garbage Collection", description = "Delete covers and renditions no review refers to in the background. Requires admin privileges.")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Garbage collection started"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required"),
+            @ApiResponse(responseCode = "409", description = "Garbage collection already running")
+    })
+    @PostMapping("/gc")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startGarbageCollection() {
+        if (!coverGarbageCollector.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(garbageCollectionStatus());
+        }
+        log.info("Admin started cover garbage collection");
+        return ResponseEntity.accepted().body(garbageCollectionStatus());
+    }
+
+    @Operation(summary = "Get Garbage Collection Status", description = "Result of the last cover garbage collection. Requires admin privileges.")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status retrieved successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required")
+    })
+    @GetMapping("/gc")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getGarbageCollectionStatus() {
+        return ResponseEntity.ok(garbageCollectionStatus());
+    }
+
+    @Operation(summary = "Get Cover Cache Statistics", description = "Hit ratio, bytes served and memory use of the in-memory cover cache. Requires admin privileges.")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required")
+    })
+    @GetMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CoverByteCache.Stats> getCacheStats() {
+        return ResponseEntity.ok(coverByteCache.getStats());
+    }
+
+    private Map<String, Object> garbageCollectionStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", coverGarbageCollector.isRunning());
+        status.put("lastResult", coverGarbageCollector.getLastResult());
+        return status;
+    }
+}
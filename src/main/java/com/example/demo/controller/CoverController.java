@@ -0,0 +1,202 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.CoverByteCache;
+import com.example.demo.service.CoverDeliveryService;
+import com.example.demo.service.CoverRenditionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/covers")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+@Tag(name = "Covers", description = "APIs for serving review cover images")
+public class CoverController {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private static final Duration PRESIGNED_URL_TTL = Duration.ofHours(1);
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    private final CoverDeliveryService coverDeliveryService;
+    private final CoverByteCache coverByteCache;
+
+    @Operation(summary = "Get Cover Image", description = "Serve the cover image in the requested size. Until the resized rendition has been generated the original image is returned. Supports HEAD, conditional requests and single byte ranges.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Image returned"),
+            @ApiResponse(responseCode = "206", description = "Requested byte range returned"),
+            @ApiResponse(responseCode = "302", description = "Redirect to the object store holding the image"),
+            @ApiResponse(responseCode = "304", description = "Image not modified"),
+            @ApiResponse(responseCode = "400", description = "Invalid cover name or size"),
+            @ApiResponse(responseCode = "404", description = "Cover not found"),
+            @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
+    })
+    @GetMapping("/{fileName}")
+    public void getCover(
+            @Parameter(description = "Cover file name as stored in the review", required = true, example = "cover1.jpg") @PathVariable String fileName,
+            @Parameter(description = "Rendition size: thumb, card or full (optional, defaults to the original)", example = "card") @RequestParam(required = false) String size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        CoverRenditionService.Size rendition = null;
+        if (size != null) {
+            try {
+                rendition = CoverRenditionService.Size.valueOf(size.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+        }
+
+        Optional<CoverDeliveryService.CoverFile> resolved = coverDeliveryService.resolve(fileName, rendition);
+        if (resolved.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        CoverDeliveryService.CoverFile cover = resolved.get();
+        CacheControl cacheControl = cover.fallback() ? CacheControl.noCache() : IMMUTABLE;
+
+        if (cover.path() == null) {
+            // Remote storage: let the client download the bytes straight from the object store
+            Optional<URI> location = coverDeliveryService.presignedUrl(cover, PRESIGNED_URL_TTL, cacheControl.getHeaderValue());
+            if (location.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cover.fallback()
+                    ? CacheControl.noCache().getHeaderValue()
+                    : CacheControl.maxAge(PRESIGNED_URL_TTL.dividedBy(2)).cachePrivate().getHeaderValue());
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.LOCATION, location.get().toString());
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(cover.etag(), cover.lastModified())) {
+            return;
+        }
+        response.setContentType(cover.mediaType().toString());
+
+        long start = 0;
+        long end = cover.length() - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isRangeApplicable(request, cover)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Multi-part ranges are rarely used for images, those requests get the whole file instead
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(cover.length());
+                    end = ranges.get(0).getRangeEnd(cover.length());
+                } catch (IllegalArgumentException e) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + cover.length());
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + cover.length());
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
+        writeContent(cover, start, count, request, response);
+    }
+
+    private boolean isRangeApplicable(HttpServletRequest request, CoverDeliveryService.CoverFile cover) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.trim().equals(cover.etag());
+    }
+
+    private void writeContent(CoverDeliveryService.CoverFile cover, long start, long count,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ByteBuffer cached = coverByteCache.get(cover);
+        if (cached == null) {
+            cached = coverByteCache.load(cover);
+        }
+        if (cached != null) {
+            cached.position((int) start).limit((int) (start + count));
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            while (cached.hasRemaining()) {
+                out.write(cached);
+            }
+            coverByteCache.recordServed(count);
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat copies the file from the page cache straight to the socket once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, cover.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        FileChannel file = openCover(cover);
+        if (file == null) {
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try (file) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = file.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private FileChannel openCover(CoverDeliveryService.CoverFile cover) throws IOException {
+        try {
+            return FileChannel.open(cover.path(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // The cached location may be stale after the layout migration moved the file
+            coverDeliveryService.evict(cover.name());
+            Optional<CoverDeliveryService.CoverFile> moved = coverDeliveryService.resolve(cover.name(), null)
+                    .filter(current -> current.etag().equals(cover.etag()));
+            return moved.isPresent() ? FileChannel.open(moved.get().path(), StandardOpenOption.READ) : null;
+        }
+    }
+}
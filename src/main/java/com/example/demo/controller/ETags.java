@@ -0,0 +1,45 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Review;
+import com.example.demo.model.User;
+import com.example.demo.service.UserStatsService;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Review review) {
+        return "\"" + review.getReviewID() + "-" + review.getVersion() + "\"";
+    }
+
+    static String of(User user) {
+        String content = user.getId() + "\n" + user.getUsername() + "\n" + user.getEmail();
+        return "\"" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    static String of(User user, UserStatsService.Stats stats) {
+        String content = user.getId() + "\n" + user.getUsername() + "\n" + user.getEmail() + "\n" + stats;
+        return "\"" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    static Long parseReviewVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            throw new IllegalArgumentException("Weak ETags are not allowed in If-Match");
+        }
+        tag = tag.replace("\"", "");
+        int separator = tag.lastIndexOf('-');
+        try {
+            return Long.parseLong(separator >= 0 ? tag.substring(separator + 1) : tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed If-Match header: " + ifMatch);
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.example.demo.controller;
 
 import com.example.demo.model.Review;
 import com.example.demo.repository.ReviewRepository;
-import com.example.demo.repository.UserRepository;
+import com.example.demo.service.ReviewService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -12,16 +12,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.security.Principal;
 import java.util.List;
-import java.util.UUID;
 
 @Controller
 @RequiredArgsConstructor
 public class ReviewController {
     private final ReviewRepository reviewRepository;
-    private final UserRepository userRepository;
+    private final ReviewService reviewService;
 
     @GetMapping("/add-review")
     public String showAddReviewForm() {
@@ -44,28 +42,11 @@ public class ReviewController {
                 return "add-review";
             }
 
-            String fileName = null;
-            if (!cover.isEmpty()) {
-                String uploadDir = new File("uploads").getAbsolutePath();
-                new File(uploadDir).mkdirs();
-
-                String extension = "";
-                String originalFilename = cover.getOriginalFilename();
-                if (originalFilename != null && originalFilename.contains(".")) {
-                    extension = originalFilename.substring(originalFilename.lastIndexOf('.'));
-                }
-
-                fileName = UUID.randomUUID() + extension;
-                cover.transferTo(new File(uploadDir, fileName));
-            }
-
-            Integer userID = getUserIDFromPrincipal(principal);
-            Review review = new Review(userID, contentType.trim(), contentTitle.trim(),
+            Review review = reviewService.createReview(contentType.trim(), contentTitle.trim(),
                     reviewTitle != null ? reviewTitle.trim() : null,
-                    reviewDescription.trim(), fileName);
+                    reviewDescription.trim(), cover, principal);
 
-            reviewRepository.save(review);
-            return "redirect:/reviews/user/" + userID;
+            return "redirect:/reviews/user/" + review.getUserID();
         } catch (Exception e) {
             model.addAttribute("error", "Wystąpił błąd podczas dodawania recenzji: " + e.getMessage());
             return "add-review";
@@ -79,10 +60,4 @@ public class ReviewController {
         model.addAttribute("userId", userId);
         return "user-reviews";
     }
-
-    private Integer getUserIDFromPrincipal(Principal principal) {
-        return userRepository.findByUsername(principal.getName())
-                .orElseThrow(() -> new RuntimeException("User not found: " + principal.getName()))
-                .getId();
-    }
 }
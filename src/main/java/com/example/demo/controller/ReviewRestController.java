@@ -1,7 +1,14 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.Review;
+import com.example.demo.repository.ReviewJdbcRepository;
+import com.example.demo.service.RecommendationService;
+import com.example.demo.service.ReviewCollectionVersions;
+import com.example.demo.service.ReviewEventBroadcaster;
+import com.example.demo.service.ReviewExportService;
+import com.example.demo.service.ReviewImportService;
 import com.example.demo.service.ReviewService;
+import com.example.demo.service.TrendingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,15 +17,27 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -27,6 +46,12 @@ import java.util.Map;
 @Tag(name = "Review Management", description = "APIs for managing reviews including CRUD operations")
 public class ReviewRestController {
     private final ReviewService reviewService;
+    private final ReviewCollectionVersions reviewCollectionVersions;
+    private final ReviewImportService reviewImportService;
+    private final ReviewExportService reviewExportService;
+    private final ReviewEventBroadcaster reviewEventBroadcaster;
+    private final RecommendationService recommendationService;
+    private final TrendingService trendingService;
 
     @Operation(summary = "Get Reviews by User ID", description = "Retrieve all reviews created by a specific user.", tags = {
             "Review Retrieval"})
@@ -44,6 +69,7 @@ public class ReviewRestController {
                         }
                     ]
                     """))),
+            @ApiResponse(responseCode = "304", description = "Not modified - the If-None-Match ETag is still current"),
             @ApiResponse(responseCode = "404", description = "No reviews found for the specified user", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
                     {
                         "error": "No reviews found for user ID 1"
@@ -52,11 +78,16 @@ public class ReviewRestController {
     })
     @GetMapping("/user/{userId}")
     public ResponseEntity<?> getReviewsByUserId(
-            @Parameter(description = "User ID to get reviews for", required = true, example = "1") @PathVariable Integer userId) {
+            @Parameter(description = "User ID to get reviews for", required = true, example = "1") @PathVariable Integer userId,
+            WebRequest webRequest) {
+        String etag = reviewCollectionVersions.userReviewsETag(userId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<Review> reviews = reviewService.getReviewsByUserId(userId);
         return reviews.isEmpty()
                 ? ResponseEntity.status(404).body(Map.of("error", "No reviews found for user ID " + userId))
-                : ResponseEntity.ok(reviews);
+                : ResponseEntity.ok().eTag(etag).body(reviews);
     }
 
     @Operation(summary = "Get Review by ID", description = "Retrieve a specific review by its unique identifier.", tags = {
@@ -73,16 +104,71 @@ public class ReviewRestController {
                         "coverFile": "cover1.jpg"
                     }
                     """))),
+            @ApiResponse(responseCode = "304", description = "Not modified - the If-None-Match ETag is still current"),
             @ApiResponse(responseCode = "404", description = "Review not found")
     })
     @GetMapping("/{reviewId}")
     public ResponseEntity<?> getReviewById(
             @Parameter(description = "Review ID", required = true, example = "1") @PathVariable Integer reviewId) {
         return reviewService.getReviewById(reviewId)
-                .map(ResponseEntity::ok)
+                .map(review -> {
+                    trendingService.recordView(review);
+                    return ResponseEntity.ok().eTag(ETags.of(review)).body(review);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Get Review Recommendations", description = "Reviews that users who favorited this review also favorited, best matches first. Served from a co-occurrence model that is rebuilt periodically, new favorites show up after the next rebuild.", tags = {
+            "Review Retrieval"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recommendations retrieved successfully, empty when there are none yet", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    [
+                        {
+                            "reviewId": 12,
+                            "contentType": "Movie",
+                            "contentTitle": "Blade Runner",
+                            "reviewTitle": "Timeless",
+                            "coverFile": "blade-runner.jpg",
+                            "sharedFavorites": 8,
+                            "score": 0.42
+                        }
+                    ]
+                    """)))
+    })
+    @GetMapping("/{reviewId}/recommendations")
+    public ResponseEntity<List<RecommendationService.Recommendation>> getRecommendations(
+            @Parameter(description = "Review ID", required = true, example = "1") @PathVariable Integer reviewId,
+            @Parameter(description = "Maximum number of recommendations (1-50)", example = "10") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(recommendationService.getRecommendations(reviewId, limit));
+    }
+
+    @Operation(summary = "Get Trending Reviews", description = "Reviews ranked by recent activity: views and favorites, with exponentially decaying weight (half-life of one day by default). Served from memory, the ranking is refreshed every minute.", tags = {
+            "Review Retrieval"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Trending reviews retrieved successfully", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    [
+                        {
+                            "review": {
+                                "reviewID": 25,
+                                "userID": 3,
+                                "contentType": "Book",
+                                "contentTitle": "Dune",
+                                "reviewTitle": "Epic Science Fiction",
+                                "reviewDescription": "A masterpiece of science fiction literature...",
+                                "coverFile": "dune.jpg"
+                            },
+                            "score": 17.3
+                        }
+                    ]
+                    """)))
+    })
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingService.TrendingReview>> getTrendingReviews(
+            @Parameter(description = "Content type to rank, all types when omitted", example = "movie") @RequestParam(required = false) String contentType,
+            @Parameter(description = "Maximum number of reviews (1-100)", example = "25") @RequestParam(defaultValue = "25") int limit) {
+        return ResponseEntity.ok(trendingService.getTrending(contentType, limit));
+    }
+
     @Operation(summary = "Get Latest Reviews", description = "Retrieve the 25 most recently created reviews.", tags = {
             "Review Retrieval"})
     @ApiResponses(value = {
@@ -107,12 +193,36 @@ public class ReviewRestController {
                             "coverFile": "inception.jpg"
                         }
                     ]
-                    """)))
+                    """))),
+            @ApiResponse(responseCode = "304", description = "Not modified - the If-None-Match ETag is still current")
     })
     @GetMapping("/latest")
-    public ResponseEntity<?> getLatestReviews() {
+    public ResponseEntity<?> getLatestReviews(WebRequest webRequest) {
+        String etag = reviewCollectionVersions.latestETag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<Review> reviews = reviewService.getLatestReviews();
-        return ResponseEntity.ok(reviews);
+        return ResponseEntity.ok().eTag(etag).body(reviews);
+    }
+
+    @Operation(summary = "Subscribe to Review Feed", description = "Server-Sent Events stream of review changes. Every committed create, update or delete is pushed as a 'review' event; events can be filtered by content type and author. Reconnecting clients send Last-Event-ID to receive missed events, or get a 'reset' event when they are too far behind and should reload.", tags = {
+            "Review Retrieval"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened", content = @Content(mediaType = "text/event-stream", examples = @ExampleObject(value = """
+                    id:1718000000123
+                    event:review
+                    data:{"type":"CREATED","reviewId":26,"userId":1,"contentType":"movie","review":{"reviewID":26,"userID":1,"contentType":"movie","contentTitle":"The Matrix","reviewTitle":"Great Sci-Fi Movie","reviewDescription":"Amazing special effects and storyline...","coverFile":null,"version":0}}
+                    """)))
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamReviews(
+            @Parameter(description = "Only events for these content types (optional)", example = "movie") @RequestParam(required = false) Set<String> contentType,
+            @Parameter(description = "Only events for reviews of these users (optional)", example = "1") @RequestParam(required = false) Set<Integer> userId,
+            @Parameter(description = "ID of the last event received before reconnecting (optional)") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            HttpServletResponse response) {
+        response.setHeader("X-Accel-Buffering", "no");
+        return reviewEventBroadcaster.subscribe(contentType, userId, lastEventId);
     }
 
     @Operation(summary = "Get Reviews by Content Title", description = "Retrieve all reviews for a specific content title.", tags = {
@@ -156,6 +266,46 @@ public class ReviewRestController {
                 : ResponseEntity.ok(reviews);
     }
 
+    @Operation(summary = "Export Reviews", description = "Stream reviews ordered by ID as NDJSON or CSV, optionally gzip-compressed. Filter by user, content type or ID range, and resume an interrupted export by passing the last received review ID as afterId. Requires admin privileges.", security = @SecurityRequirement(name = "bearerAuth"), tags = {
+            "Admin"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export stream", content = @Content(mediaType = "application/x-ndjson", examples = @ExampleObject(value = """
+                    {"reviewID":1,"userID":1,"contentType":"Movie","contentTitle":"The Matrix","reviewTitle":"Great Sci-Fi Movie","reviewDescription":"Amazing special effects and storyline...","coverFile":"cover1.jpg","version":0}
+                    {"reviewID":2,"userID":3,"contentType":"Book","contentTitle":"Dune","reviewTitle":"Epic Science Fiction","reviewDescription":"A masterpiece of science fiction literature...","coverFile":null,"version":2}
+                    """))),
+            @ApiResponse(responseCode = "400", description = "Unknown export format"),
+            @ApiResponse(responseCode = "403", description = "Access denied - admin role required")
+    })
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportReviews(
+            @Parameter(description = "Export format: ndjson or csv", example = "ndjson") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Compress the export with gzip", example = "false") @RequestParam(defaultValue = "false") boolean gzip,
+            @Parameter(description = "Only reviews of this user (optional)", example = "1") @RequestParam(required = false) Integer userId,
+            @Parameter(description = "Only reviews of this content type (optional)", example = "movie") @RequestParam(required = false) String contentType,
+            @Parameter(description = "Lowest review ID to export, inclusive (optional)", example = "1") @RequestParam(required = false) Integer fromId,
+            @Parameter(description = "Highest review ID to export, inclusive (optional)", example = "100000") @RequestParam(required = false) Integer toId,
+            @Parameter(description = "Resume after this review ID (optional)", example = "52000") @RequestParam(required = false) Integer afterId) {
+        ReviewExportService.Format exportFormat;
+        try {
+            exportFormat = ReviewExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        ReviewJdbcRepository.StreamFilter filter = new ReviewJdbcRepository.StreamFilter(userId, contentType, fromId,
+                toId, afterId);
+        String fileName = "reviews." + exportFormat.name().toLowerCase() + (gzip ? ".gz" : "");
+        MediaType mediaType = gzip ? MediaType.parseMediaType("application/gzip")
+                : exportFormat == ReviewExportService.Format.CSV ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(out -> reviewExportService.export(filter, exportFormat, gzip, out));
+    }
+
     @Operation(summary = "Create New Review", description = "Create a new review with optional cover image upload. Requires authentication.", security = @SecurityRequirement(name = "bearerAuth"), tags = {
             "Review Management"})
     @ApiResponses(value = {
@@ -200,7 +350,39 @@ public class ReviewRestController {
         }
     }
 
-    @Operation(summary = "Update Review", description = "Update an existing review. Only the review owner can update their reviews. Requires authentication.", security = @SecurityRequirement(name = "bearerAuth"), tags = {
+    @Operation(summary = "Import Reviews", description = "Bulk import reviews sent as the request body: a JSON array (application/json), NDJSON (application/x-ndjson) or CSV (text/csv, columns: userID, contentType, contentTitle, reviewTitle, reviewDescription, coverFile). To import cover images, send a ZIP archive (application/zip) with the reviews as reviews.json, reviews.ndjson or reviews.csv and the images referenced by coverFile. The body is streamed and limited by app.imports.max-size. Only admins may import reviews on behalf of other users. Requires authentication.", security = @SecurityRequirement(name = "bearerAuth"), tags = {
+            "Review Management"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, rows that could not be imported are reported individually", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    {
+                        "imported": 998,
+                        "failed": 2,
+                        "errors": [
+                            { "row": 17, "error": "Required fields must not be empty" },
+                            { "row": 503, "error": "Cover 'dune.jpg' not found in archive" }
+                        ],
+                        "errorsTruncated": false
+                    }
+                    """))),
+            @ApiResponse(responseCode = "400", description = "Invalid request - unreadable payload or archive, or larger than app.imports.max-size", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    {
+                        "error": "zip END header not found"
+                    }
+                    """))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - authentication required")
+    })
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            "text/csv", "application/zip"})
+    public ResponseEntity<?> importReviews(HttpServletRequest request, Principal principal) {
+        try {
+            return ResponseEntity.ok(reviewImportService.importReviews(request.getInputStream(),
+                    request.getContentLengthLong(), MediaType.parseMediaType(request.getContentType()), principal));
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Update Review", description = "Update an existing review. Only the review owner can update their reviews. Send the ETag of the review in If-Match to reject the update when the review was changed in the meantime. Requires authentication.", security = @SecurityRequirement(name = "bearerAuth"), tags = {
             "Review Management"})
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Review updated successfully", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
@@ -225,7 +407,12 @@ public class ReviewRestController {
                         "error": "Not authorized to update this review"
                     }
                     """))),
-            @ApiResponse(responseCode = "404", description = "Review not found")
+            @ApiResponse(responseCode = "404", description = "Review not found"),
+            @ApiResponse(responseCode = "412", description = "Precondition failed - review was modified since the given ETag", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    {
+                        "error": "Review was modified by another request"
+                    }
+                    """)))
     })
     @PutMapping("/{reviewId}")
     public ResponseEntity<?> updateReview(
@@ -235,12 +422,17 @@ public class ReviewRestController {
             @Parameter(description = "Updated content title", required = true, example = "The Matrix Reloaded") @RequestParam String contentTitle,
             @Parameter(description = "Updated review title (optional)", required = false, example = "Updated Review Title") @RequestParam(required = false) String reviewTitle,
             @Parameter(description = "Updated review description", required = true, example = "Updated review description...") @RequestParam String reviewDescription,
+            @Parameter(description = "ETag of the review the update is based on (optional)", required = false, example = "\"1-3\"") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Principal principal) {
         try {
             MultipartFile fileToUse = coverFile != null && !coverFile.isEmpty() ? coverFile : null;
+            Long expectedVersion = ETags.parseReviewVersion(ifMatch);
             Review updatedReview = reviewService.updateReview(reviewId, contentType, contentTitle,
-                    reviewTitle, reviewDescription, fileToUse, principal);
-            return ResponseEntity.ok(updatedReview);
+                    reviewTitle, reviewDescription, fileToUse, expectedVersion, principal);
+            return ResponseEntity.ok().eTag(ETags.of(updatedReview)).body(updatedReview);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", "Review was modified by another request"));
         } catch (SecurityException | AccessDeniedException e) {
             return ResponseEntity.status(403).body(Map.of("error", "Not authorized to update this review"));
         } catch (RuntimeException e) {
@@ -1,6 +1,5 @@
 package com.example.demo.controller;
 
-import com.example.demo.model.Review;
 import com.example.demo.service.UserFavoriteReviewService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -29,6 +28,7 @@ import java.util.Map;
 @Tag(name = "User Favorite Reviews", description = "APIs for managing user favorite reviews")
 @SecurityRequirement(name = "bearerAuth")
 public class UserFavoriteReviewRestController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final UserFavoriteReviewService userFavoriteReviewService;
 
@@ -70,6 +70,45 @@ public class UserFavoriteReviewRestController {
         }
     }
 
+    @Operation(summary = "Add Review to Favorites", description = "Mark a review as favorite. Idempotent: repeating the request leaves the favorite in place and reports changed = false.", tags = {"Favorites"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Review is favorited", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Map.class), examples = @ExampleObject(value = """
+                    {
+                        "isFavorited": true,
+                        "changed": true,
+                        "reviewId": 1
+                    }
+                    """))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - User not authenticated"),
+            @ApiResponse(responseCode = "404", description = "Review not found")
+    })
+    @PutMapping("/{reviewId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> addFavorite(
+            @Parameter(description = "Review ID to favorite", required = true, example = "1") @PathVariable Integer reviewId,
+            Principal principal) {
+        return setFavorite(reviewId, true, principal);
+    }
+
+    @Operation(summary = "Remove Review from Favorites", description = "Remove a review from the favorites. Idempotent: removing a review that is not favorited reports changed = false.", tags = {"Favorites"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Review is not favorited", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Map.class), examples = @ExampleObject(value = """
+                    {
+                        "isFavorited": false,
+                        "changed": true,
+                        "reviewId": 1
+                    }
+                    """))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - User not authenticated")
+    })
+    @DeleteMapping("/{reviewId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> removeFavorite(
+            @Parameter(description = "Review ID to remove from favorites", required = true, example = "1") @PathVariable Integer reviewId,
+            Principal principal) {
+        return setFavorite(reviewId, false, principal);
+    }
+
     @Operation(summary = "Check if Review is Favorited", description = "Check if a specific review is favorited by the current user.", tags = {"Favorites"})
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Favorite status retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Map.class), examples = @ExampleObject(value = """
@@ -97,18 +136,57 @@ public class UserFavoriteReviewRestController {
         }
     }
 
-    @Operation(summary = "Get User's Favorite Reviews", description = "Retrieve all reviews favorited by the current user.", tags = {"Favorites"})
+    @Operation(summary = "Get Favorite Status for Reviews", description = "Check in one request which of the given reviews the current user favorited, together with their favorite counts. Meant for list pages, replaces one check and one count request per review.", tags = {"Favorites"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Favorite statuses retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = List.class), examples = @ExampleObject(value = """
+                    [
+                        {
+                            "reviewId": 1,
+                            "isFavorited": true,
+                            "favoriteCount": 42
+                        },
+                        {
+                            "reviewId": 2,
+                            "isFavorited": false,
+                            "favoriteCount": 0
+                        }
+                    ]
+                    """))),
+            @ApiResponse(responseCode = "400", description = "Too many review IDs", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    {
+                        "error": "At most 200 review IDs can be checked at once"
+                    }
+                    """))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - User not authenticated")
+    })
+    @GetMapping("/status")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getFavoriteStatuses(
+            @Parameter(description = "Comma separated review IDs (at most 200)", required = true, example = "1,2,3") @RequestParam List<Integer> reviewIds,
+            Principal principal) {
+        try {
+            return ResponseEntity.ok(userFavoriteReviewService.getFavoriteStatuses(reviewIds, principal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to get favorite statuses: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Get User's Favorite Reviews", description = "Retrieve the reviews favorited by the current user, most recently favorited first. Results are paginated with a keyset cursor: when more favorites follow, the X-Next-Cursor header holds the value to pass as 'before' for the next page.", tags = {"Favorites"})
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Favorite reviews retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = List.class), examples = @ExampleObject(value = """
                     [
                         {
-                            "id": 1,
-                            "contentTitle": "The Matrix",
+                            "favoriteId": 57,
+                            "reviewID": 1,
+                            "userID": 3,
                             "contentType": "MOVIE",
-                            "rating": 5,
-                            "reviewText": "Amazing movie!",
-                            "reviewerUsername": "john_doe",
-                            "createdAt": "2023-12-01T10:00:00Z"
+                            "contentTitle": "The Matrix",
+                            "reviewTitle": "Still holds up",
+                            "reviewDescription": "Amazing movie!",
+                            "coverFile": "cover1.jpg"
                         }
                     ]
                     """))),
@@ -116,10 +194,17 @@ public class UserFavoriteReviewRestController {
     })
     @GetMapping("/my-favorites")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<?> getUserFavoriteReviews(Principal principal) {
+    public ResponseEntity<?> getUserFavoriteReviews(
+            @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page (optional)", example = "57") @RequestParam(required = false) Integer before,
+            @Parameter(description = "Maximum number of favorites to return (1-200)", example = "50") @RequestParam(defaultValue = "50") int limit,
+            Principal principal) {
         try {
-            List<Review> favoriteReviews = userFavoriteReviewService.getUserFavoriteReviews(principal);
-            return ResponseEntity.ok(favoriteReviews);
+            UserFavoriteReviewService.FavoritePage page = userFavoriteReviewService.getUserFavoriteReviews(principal, before, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.nextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()));
+            }
+            return response.body(page.favorites());
         } catch (RuntimeException e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to retrieve favorite reviews: " + e.getMessage()));
@@ -149,4 +234,21 @@ public class UserFavoriteReviewRestController {
                     .body(Map.of("error", "Failed to get favorite count: " + e.getMessage()));
         }
     }
+
+    private ResponseEntity<?> setFavorite(Integer reviewId, boolean favorited, Principal principal) {
+        try {
+            UserFavoriteReviewService.FavoriteChange change = userFavoriteReviewService.setFavorite(reviewId, favorited, principal);
+            return ResponseEntity.ok(Map.of(
+                    "isFavorited", change.favorited(),
+                    "changed", change.changed(),
+                    "reviewId", reviewId
+            ));
+        } catch (RuntimeException e) {
+            if (e.getMessage() != null && e.getMessage().contains("not found")) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to update favorite: " + e.getMessage()));
+        }
+    }
 }
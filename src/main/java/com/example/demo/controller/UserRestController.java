@@ -1,9 +1,13 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.User;
+import com.example.demo.repository.UserJdbcRepository;
 import com.example.demo.security.JwtUtil;
 import com.example.demo.service.RefreshTokenService;
+import com.example.demo.service.UserExportService;
+import com.example.demo.service.UserSearchService;
 import com.example.demo.service.UserService;
+import com.example.demo.service.UserStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -25,6 +29,7 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.security.Principal;
 import java.util.HashMap;
@@ -39,7 +44,12 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "http://localhost:3000")
 @Tag(name = "User Management", description = "APIs for user authentication, registration, and management")
 public class UserRestController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final UserService userService;
+    private final UserStatsService userStatsService;
+    private final UserExportService userExportService;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
     private final RefreshTokenService refreshTokenService;
@@ -165,7 +175,13 @@ public class UserRestController {
                         "id": 1,
                         "username": "john_doe",
                         "email": "john@example.com",
-                        "role": "ROLE_USER"
+                        "role": "ROLE_USER",
+                        "stats": {
+                            "reviewCount": 12,
+                            "favoritesGiven": 30,
+                            "favoritesReceived": 57,
+                            "lastActivity": "2024-01-15T10:30:00Z"
+                        }
                     }
                     """))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing JWT token"),
@@ -180,35 +196,51 @@ public class UserRestController {
                     userMap.put("username", user.getUsername());
                     userMap.put("email", user.getEmail());
                     userMap.put("role", user.getRole().name());
+                    userStatsService.getStats(user.getId()).ifPresent(stats -> userMap.put("stats", stats));
                     return ResponseEntity.ok(userMap);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    @Operation(summary = "Get User by ID", description = "Retrieve user details by their unique identifier.", tags = {
+    @Operation(summary = "Get User by ID", description = "Retrieve user details and profile stats by their unique identifier.", tags = {
             "User Management"})
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User found successfully", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
                     {
                         "id": 1,
                         "username": "john_doe",
-                        "email": "john@example.com"
+                        "email": "john@example.com",
+                        "stats": {
+                            "reviewCount": 12,
+                            "favoritesGiven": 30,
+                            "favoritesReceived": 57,
+                            "lastActivity": "2024-01-15T10:30:00Z"
+                        }
                     }
                     """))),
+            @ApiResponse(responseCode = "304", description = "Not modified - the If-None-Match ETag is still current"),
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/{id}")
     public ResponseEntity<?> getUserById(
             @Parameter(description = "User ID", required = true, example = "1") @PathVariable Integer id) {
         return userService.findById(id)
-                .map(user -> ResponseEntity.ok().body(Map.of(
-                        "id", user.getId(),
-                        "username", user.getUsername(),
-                        "email", user.getEmail())))
+                .map(user -> {
+                    Map<String, Object> userMap = new HashMap<>();
+                    userMap.put("id", user.getId());
+                    userMap.put("username", user.getUsername());
+                    userMap.put("email", user.getEmail());
+                    return userStatsService.getStats(user.getId())
+                            .map(stats -> {
+                                userMap.put("stats", stats);
+                                return ResponseEntity.ok().eTag(ETags.of(user, stats)).body(userMap);
+                            })
+                            .orElseGet(() -> ResponseEntity.ok().eTag(ETags.of(user)).body(userMap));
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    @Operation(summary = "Get All Users", description = "Retrieve a list of all users in the system. Requires admin privileges.", security = @SecurityRequirement(name = "bearerAuth"), tags = {
+    @Operation(summary = "Get All Users", description = "List users ordered by ID, optionally filtered by role and case-insensitive username prefix. Results are paginated with a keyset cursor: when more users follow, the X-Next-Cursor header holds the value to pass as 'afterId' for the next page. Requires admin privileges.", security = @SecurityRequirement(name = "bearerAuth"), tags = {
             "Admin"})
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Users retrieved successfully", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
@@ -227,23 +259,81 @@ public class UserRestController {
                         }
                     ]
                     """))),
+            @ApiResponse(responseCode = "400", description = "Invalid role", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    {
+                        "error": "Invalid role: ROLE_GUEST"
+                    }
+                    """))),
             @ApiResponse(responseCode = "403", description = "Access denied - admin role required")
     })
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        List<Map<String, Object>> response = users.stream()
-                .map(user -> {
-                    Map<String, Object> userMap = new HashMap<>();
-                    userMap.put("id", user.getId());
-                    userMap.put("username", user.getUsername());
-                    userMap.put("email", user.getEmail());
-                    userMap.put("role", user.getRole().name());
-                    return userMap;
-                })
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> getAllUsers(
+            @Parameter(description = "Only users with this role (optional)", example = "ROLE_USER") @RequestParam(required = false) String role,
+            @Parameter(description = "Only users whose username starts with this, case-insensitive (optional)", example = "john") @RequestParam(required = false) String usernamePrefix,
+            @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page (optional)", example = "50") @RequestParam(required = false) Integer afterId,
+            @Parameter(description = "Maximum number of users to return (1-200)", example = "50") @RequestParam(defaultValue = "50") int limit) {
+        UserJdbcRepository.UserFilter filter;
+        try {
+            filter = new UserJdbcRepository.UserFilter(parseRole(role), usernamePrefix, afterId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        UserService.UserPage page = userService.listUsers(filter, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()));
+        }
+        return response.body(page.users());
+    }
+
+    @Operation(summary = "Export Users", description = "Stream users ordered by ID as NDJSON or CSV, optionally gzip-compressed, without loading the whole table. Accepts the filters of the user list, and resumes an interrupted export after the last received user ID passed as afterId. Password hashes are never read. Requires admin privileges.", security = @SecurityRequirement(name = "bearerAuth"), tags = {
+            "Admin"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export stream", content = @Content(mediaType = "application/x-ndjson", examples = @ExampleObject(value = """
+                    {"id":1,"username":"john_doe","email":"john@example.com","role":"ROLE_USER"}
+                    {"id":2,"username":"admin","email":"admin@example.com","role":"ROLE_ADMIN"}
+                    """))),
+            @ApiResponse(responseCode = "400", description = "Unknown export format or role"),
+            @ApiResponse(responseCode = "403", description = "Access denied - admin role required")
+    })
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @Parameter(description = "Export format: ndjson or csv", example = "ndjson") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Compress the export with gzip", example = "false") @RequestParam(defaultValue = "false") boolean gzip,
+            @Parameter(description = "Only users with this role (optional)", example = "ROLE_USER") @RequestParam(required = false) String role,
+            @Parameter(description = "Only users whose username starts with this, case-insensitive (optional)", example = "john") @RequestParam(required = false) String usernamePrefix,
+            @Parameter(description = "Resume after this user ID (optional)", example = "52000") @RequestParam(required = false) Integer afterId) {
+        UserExportService.Format exportFormat;
+        UserJdbcRepository.UserFilter filter;
+        try {
+            exportFormat = UserExportService.Format.valueOf(format.toUpperCase());
+            filter = new UserJdbcRepository.UserFilter(parseRole(role), usernamePrefix, afterId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String fileName = "users." + exportFormat.name().toLowerCase() + (gzip ? ".gz" : "");
+        MediaType mediaType = gzip ? MediaType.parseMediaType("application/gzip")
+                : exportFormat == UserExportService.Format.CSV ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(out -> userExportService.export(filter, exportFormat, gzip, out));
+    }
+
+    private static User.Role parseRole(String role) {
+        if (role == null || role.isBlank()) {
+            return null;
+        }
+        try {
+            return User.Role.valueOf(role.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid role: " + role);
+        }
     }
 
     @Operation(summary = "Update User Role", description = "Update the role of a specific user. Requires admin privileges.", security = @SecurityRequirement(name = "bearerAuth"), tags = {
@@ -290,7 +380,7 @@ public class UserRestController {
         }
     }
 
-    @Operation(summary = "Search Users", description = "Search for users by username using case-insensitive partial matching.", tags = {
+    @Operation(summary = "Search Users", description = "Search users by username or email using case-insensitive partial matching. Queries need at least 2 characters, 2 character queries match the start of the username or email. Results are ranked by match quality: exact username, username prefix, username match, email prefix, email match. The X-Total-Count header holds the number of matches, pages reach at most the first 1000 of them.", tags = {
             "User Management"})
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Search completed successfully", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
@@ -308,18 +398,22 @@ public class UserRestController {
     })
     @GetMapping("/search")
     public ResponseEntity<?> searchUsers(
-            @Parameter(description = "Username search term", required = true, example = "doe") @RequestParam String username) {
-        List<User> users = userService.searchUsers(username);
-        List<Map<String, Object>> response = users.stream()
+            @Parameter(description = "Username or email search term", required = true, example = "doe") @RequestParam String username,
+            @Parameter(description = "Page number (0-based)", example = "0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (1-100)", example = "20") @RequestParam(defaultValue = "20") int size) {
+        UserSearchService.SearchResult result = userService.searchUsers(username, page, size);
+        List<Map<String, Object>> response = result.users().stream()
                 .map(user -> {
                     Map<String, Object> userMap = new HashMap<>();
-                    userMap.put("id", user.getId());
-                    userMap.put("username", user.getUsername());
+                    userMap.put("id", user.id());
+                    userMap.put("username", user.username());
                     return userMap;
                 })
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(result.total()))
+                .body(response);
     }
 
     @Operation(summary = "Delete User", description = "Delete a user and all their reviews. Admin users cannot be deleted. Requires admin privileges.", security = @SecurityRequirement(name = "bearerAuth"), tags = {
@@ -0,0 +1,10 @@
+package com.example.demo.event;
+
+import com.example.demo.model.Review;
+
+public record ReviewChangedEvent(Type type, Review review) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
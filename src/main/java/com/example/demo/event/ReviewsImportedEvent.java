@@ -0,0 +1,6 @@
+package com.example.demo.event;
+
+import java.util.Set;
+
+public record ReviewsImportedEvent(Set<Integer> userIds, int count) {
+}
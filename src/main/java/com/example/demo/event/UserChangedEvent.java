@@ -0,0 +1,10 @@
+package com.example.demo.event;
+
+import com.example.demo.model.User;
+
+public record UserChangedEvent(Type type, User user) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
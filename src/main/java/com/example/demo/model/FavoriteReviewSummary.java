@@ -0,0 +1,9 @@
+package com.example.demo.model;
+
+/**
+ * Review as listed on the favorites page, the description is cut to a short excerpt.
+ */
+public record FavoriteReviewSummary(Integer favoriteId, Integer reviewID, Integer userID, String contentType,
+                                    String contentTitle, String reviewTitle, String reviewDescription,
+                                    String coverFile) {
+}
@@ -1,12 +1,18 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Objects;
+
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_cover_file", columnList = "\"coverFile\""),
+        @Index(name = "idx_reviews_user", columnList = "\"userID\"")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,6 +40,17 @@ public class Review {
     @Column(name = "\"coverFile\"")
     private String coverFile;
 
+    @Version
+    @Column(name = "\"version\"", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Maintained by FavoriteCountService in batches, never written through JPA. Lags behind the favorites and is
+    // not part of the ETag, clients read the live count from the favorites endpoints
+    @JsonIgnore
+    @Column(name = "\"favoriteCount\"", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint default 0")
+    private Long favoriteCount = 0L;
+
     public Review(Integer userID, String contentType, String contentTitle, String reviewTitle, String reviewDescription, String coverFile) {
         this.userID = userID;
         this.contentType = contentType;
@@ -42,4 +59,17 @@ public class Review {
         this.reviewDescription = reviewDescription;
         this.coverFile = coverFile;
     }
+
+    public Review(Integer reviewID, Integer userID, String contentType, String contentTitle, String reviewTitle,
+                  String reviewDescription, String coverFile) {
+        this(userID, contentType, contentTitle, reviewTitle, reviewDescription, coverFile);
+        this.reviewID = reviewID;
+    }
+
+    public boolean hasSameContent(String contentType, String contentTitle, String reviewTitle, String reviewDescription) {
+        return Objects.equals(this.contentType, contentType)
+                && Objects.equals(this.contentTitle, contentTitle)
+                && Objects.equals(this.reviewTitle, reviewTitle)
+                && Objects.equals(this.reviewDescription, reviewDescription);
+    }
 }
@@ -6,7 +6,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "userFavoriteReviews")
+@Table(name = "userFavoriteReviews",
+        indexes = {
+                @Index(name = "idx_user_favorites_user_favorite", columnList = "userID, favoriteID"),
+                @Index(name = "idx_user_favorites_review", columnList = "reviewID")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_favorites_user_review", columnNames = {"userID", "reviewID"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 import java.time.ZonedDateTime;
 
 @Entity
-@Table(name = "userLogs")
+@Table(name = "userLogs", indexes = @Index(name = "idx_user_logs_user_date", columnList = "userID, date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
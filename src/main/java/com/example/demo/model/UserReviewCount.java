@@ -0,0 +1,7 @@
+package com.example.demo.model;
+
+/**
+ * User as listed in the admin panel, with the number of reviews counted by the database.
+ */
+public record UserReviewCount(Integer id, String username, String email, User.Role role, Long reviewCount) {
+}
@@ -0,0 +1,36 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Per-user numbers shown on profile pages, kept up to date by {@link com.example.demo.service.UserStatsService}
+ * so that they are read by primary key instead of counting reviews, favorites and logs.
+ */
+@Entity
+@Table(name = "userStats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStats {
+
+    @Id
+    @Column(name = "userID")
+    private Integer userID;
+
+    @Column(name = "reviewCount", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "favoritesGiven", nullable = false)
+    private long favoritesGiven;
+
+    @Column(name = "favoritesReceived", nullable = false)
+    private long favoritesReceived;
+
+    @Column(name = "lastActivity")
+    private ZonedDateTime lastActivity;
+}
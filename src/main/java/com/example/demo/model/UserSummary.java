@@ -0,0 +1,7 @@
+package com.example.demo.model;
+
+/**
+ * User as listed and exported for admins, read without the password hash.
+ */
+public record UserSummary(Integer id, String username, String email, User.Role role) {
+}
@@ -0,0 +1,155 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Review;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class ReviewJdbcRepository {
+    private static final String INSERT_SQL = """
+            INSERT INTO "reviews" ("userID", "contentType", "contentTitle", "reviewTitle", "reviewDescription", "coverFile", "version")
+            VALUES (?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    private static final String RECOMPUTE_REVIEW_FAVORITE_COUNTS_SQL = """
+            UPDATE "reviews" r
+            SET "favoriteCount" = (SELECT COUNT(*) FROM "userFavoriteReviews" f WHERE f."reviewID" = r."reviewID")
+            WHERE r."reviewID" = ANY(?)
+            """;
+
+    private static final String RECOMPUTE_FAVORITE_COUNTS_SQL = """
+            UPDATE "reviews" r SET "favoriteCount" = COALESCE(c."favorites", 0)
+            FROM "reviews" r2
+            LEFT JOIN (SELECT "reviewID", COUNT(*) AS "favorites" FROM "userFavoriteReviews" GROUP BY "reviewID") c
+                ON c."reviewID" = r2."reviewID"
+            WHERE r2."reviewID" = r."reviewID" AND r."favoriteCount" IS DISTINCT FROM COALESCE(c."favorites", 0)
+            """;
+
+    // Ids and versions of the newest reviews, any create, update or delete among them changes the hash
+    private static final String LATEST_FINGERPRINT_SQL = """
+            SELECT COALESCE(md5(string_agg("reviewID" || ':' || "version", ',' ORDER BY "reviewID")), 'none')
+            FROM (SELECT "reviewID", "version" FROM "reviews" ORDER BY "reviewID" DESC LIMIT ?) latest
+            """;
+
+    // Creates raise the highest id, deletes lower the count and updates raise the version sum
+    private static final String USER_FINGERPRINT_SQL = """
+            SELECT COUNT(*) || '-' || COALESCE(MAX("reviewID"), 0) || '-' || COALESCE(SUM("version"), 0)
+            FROM "reviews" WHERE "userID" = ?
+            """;
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record StreamFilter(Integer userId, String contentType, Integer fromId, Integer toId, Integer afterId) {
+    }
+
+    public void batchInsert(List<Review> reviews) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, reviews, reviews.size(), (ps, review) -> {
+            ps.setInt(1, review.getUserID());
+            ps.setString(2, review.getContentType());
+            ps.setString(3, review.getContentTitle());
+            ps.setString(4, review.getReviewTitle());
+            ps.setString(5, review.getReviewDescription());
+            ps.setString(6, review.getCoverFile());
+        });
+    }
+
+    /**
+     * Sets the stored favorite count of the reviews to the number of rows in the favorites table.
+     */
+    public int recomputeFavoriteCounts(Collection<Integer> reviewIds) {
+        if (reviewIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RECOMPUTE_REVIEW_FAVORITE_COUNTS_SQL);
+            ps.setArray(1, connection.createArrayOf("integer", reviewIds.toArray()));
+            return ps;
+        });
+    }
+
+    public String latestReviewsFingerprint(int limit) {
+        return jdbcTemplate.queryForObject(LATEST_FINGERPRINT_SQL, String.class, limit);
+    }
+
+    public String userReviewsFingerprint(Integer userId) {
+        return jdbcTemplate.queryForObject(USER_FINGERPRINT_SQL, String.class, userId);
+    }
+
+    public int recomputeFavoriteCounts() {
+        return jdbcTemplate.update(RECOMPUTE_FAVORITE_COUNTS_SQL);
+    }
+
+    public void readFavoriteCounts(BiConsumer<Integer, Long> consumer) {
+        jdbcTemplate.query("SELECT \"reviewID\", \"favoriteCount\" FROM \"reviews\" WHERE \"favoriteCount\" > 0",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getInt(1), rs.getLong(2)));
+    }
+
+    public void readContentTitles(BiConsumer<Integer, String> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT \"reviewID\", \"contentTitle\" FROM \"reviews\"",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getInt(1), rs.getString(2)));
+    }
+
+    public void streamReviews(StreamFilter filter, Consumer<Review> consumer) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT "reviewID", "userID", "contentType", "contentTitle", "reviewTitle", "reviewDescription", "coverFile", "version"
+                FROM "reviews" WHERE 1 = 1""");
+        List<Object> params = new ArrayList<>();
+        if (filter.userId() != null) {
+            sql.append(" AND \"userID\" = ?");
+            params.add(filter.userId());
+        }
+        if (filter.contentType() != null) {
+            sql.append(" AND lower(\"contentType\") = lower(?)");
+            params.add(filter.contentType());
+        }
+        if (filter.fromId() != null) {
+            sql.append(" AND \"reviewID\" >= ?");
+            params.add(filter.fromId());
+        }
+        if (filter.toId() != null) {
+            sql.append(" AND \"reviewID\" <= ?");
+            params.add(filter.toId());
+        }
+        if (filter.afterId() != null) {
+            sql.append(" AND \"reviewID\" > ?");
+            params.add(filter.afterId());
+        }
+        sql.append(" ORDER BY \"reviewID\"");
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapReview(rs)));
+    }
+
+    private Review mapReview(ResultSet rs) throws SQLException {
+        Review review = new Review(rs.getInt("reviewID"), rs.getInt("userID"), rs.getString("contentType"),
+                rs.getString("contentTitle"), rs.getString("reviewTitle"), rs.getString("reviewDescription"),
+                rs.getString("coverFile"));
+        review.setVersion(rs.getLong("version"));
+        return review;
+    }
+}
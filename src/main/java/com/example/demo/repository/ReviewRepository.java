@@ -2,8 +2,11 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,4 +18,11 @@ public interface ReviewRepository extends JpaRepository<Review, Integer> {
     List<Review> findByContentTitleOrderByReviewIDDesc(String contentTitle);
 
     List<Review> findByContentTitleIgnoreCase(String contentTitle);
+
+    long countByCoverFile(String coverFile);
+
+    boolean existsByCoverFileStartingWith(String prefix);
+
+    @Query("SELECT DISTINCT r.coverFile FROM Review r WHERE r.coverFile IN :coverFiles")
+    List<String> findReferencedCoverFiles(@Param("coverFiles") Collection<String> coverFiles);
 }
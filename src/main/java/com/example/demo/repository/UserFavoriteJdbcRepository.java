@@ -0,0 +1,175 @@
+package com.example.demo.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Favorite changes as single statements. They rely on the unique constraint on {@code (userID, reviewID)},
+ * concurrent requests of the same user therefore never create duplicate rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserFavoriteJdbcRepository {
+    public static final String UNIQUE_CONSTRAINT = "uk_user_favorites_user_review";
+
+    private static final String TOGGLE_SQL = """
+            WITH "removed" AS (
+                DELETE FROM "userFavoriteReviews" WHERE "userID" = ? AND "reviewID" = ? RETURNING "favoriteID"
+            ), "added" AS (
+                INSERT INTO "userFavoriteReviews" ("userID", "reviewID")
+                SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM "removed")
+                    AND EXISTS (SELECT 1 FROM "reviews" WHERE "reviewID" = ?)
+                ON CONFLICT ("userID", "reviewID") DO NOTHING
+                RETURNING "favoriteID"
+            )
+            SELECT (SELECT COUNT(*) FROM "removed"), (SELECT COUNT(*) FROM "added")
+            """;
+
+    private static final String ADD_SQL = """
+            INSERT INTO "userFavoriteReviews" ("userID", "reviewID")
+            SELECT ?, ? WHERE EXISTS (SELECT 1 FROM "reviews" WHERE "reviewID" = ?)
+            ON CONFLICT ("userID", "reviewID") DO NOTHING
+            """;
+
+    private static final String REMOVE_SQL = """
+            DELETE FROM "userFavoriteReviews" WHERE "userID" = ? AND "reviewID" = ?
+            """;
+
+    private static final String DELETE_DUPLICATES_SQL = """
+            DELETE FROM "userFavoriteReviews" f USING "userFavoriteReviews" d
+            WHERE f."userID" = d."userID" AND f."reviewID" = d."reviewID" AND f."favoriteID" > d."favoriteID"
+            """;
+
+    private static final String ADD_UNIQUE_CONSTRAINT_SQL = """
+            DO $$
+            BEGIN
+                IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = '%1$s') THEN
+                    ALTER TABLE "userFavoriteReviews" ADD CONSTRAINT "%1$s" UNIQUE ("userID", "reviewID");
+                END IF;
+            END $$
+            """.formatted(UNIQUE_CONSTRAINT);
+
+    private static final String READ_RANGE_SQL = """
+            SELECT "userID", "reviewID" FROM "userFavoriteReviews"
+            WHERE "userID" >= ? AND "userID" < ? ORDER BY "userID", "reviewID"
+            """;
+
+    private static final String READ_USERS_SQL = """
+            SELECT "userID", "reviewID" FROM "userFavoriteReviews"
+            WHERE "userID" = ANY(?) ORDER BY "userID", "reviewID"
+            """;
+
+    private static final String FIND_USERS_AFTER_SQL = """
+            SELECT "userID", MAX("favoriteID") FROM "userFavoriteReviews" WHERE "favoriteID" > ? GROUP BY "userID"
+            """;
+
+    private static final int STREAM_FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record IdRange(int min, int max) {
+    }
+
+    /**
+     * Outcome of a toggle. Neither flag is set when the review does not exist or a concurrent request
+     * of the same user added the favorite first.
+     */
+    public record ToggleResult(boolean removed, boolean added) {
+    }
+
+    /**
+     * Users with favorites added after a watermark and the highest favorite id among them.
+     */
+    public record AddedSince(List<Integer> userIds, int maxFavoriteId) {
+    }
+
+    public ToggleResult toggle(Integer userId, Integer reviewId) {
+        return jdbcTemplate.queryForObject(TOGGLE_SQL,
+                (rs, rowNum) -> new ToggleResult(rs.getLong(1) > 0, rs.getLong(2) > 0),
+                userId, reviewId, userId, reviewId, reviewId);
+    }
+
+    /**
+     * Returns whether a row was inserted, false when the favorite already exists or the review does not.
+     */
+    public boolean add(Integer userId, Integer reviewId) {
+        return jdbcTemplate.update(ADD_SQL, userId, reviewId, reviewId) > 0;
+    }
+
+    public boolean remove(Integer userId, Integer reviewId) {
+        return jdbcTemplate.update(REMOVE_SQL, userId, reviewId) > 0;
+    }
+
+    /**
+     * Smallest and largest user id with favorites, null when there are none.
+     */
+    public IdRange findUserIdRange() {
+        return jdbcTemplate.queryForObject("SELECT MIN(\"userID\"), MAX(\"userID\") FROM \"userFavoriteReviews\"",
+                (rs, rowNum) -> {
+                    int min = rs.getInt(1);
+                    return rs.wasNull() ? null : new IdRange(min, rs.getInt(2));
+                });
+    }
+
+    /**
+     * Streams the favorites of users in {@code [fromUserId, toUserId)} ordered by user and review.
+     */
+    public void readFavorites(int fromUserId, int toUserId, BiConsumer<Integer, Integer> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(READ_RANGE_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setInt(1, fromUserId);
+            ps.setInt(2, toUserId);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getInt(1), rs.getInt(2)));
+    }
+
+    /**
+     * Streams the favorites of the given users ordered by user and review.
+     */
+    public void readFavorites(Collection<Integer> userIds, BiConsumer<Integer, Integer> consumer) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(READ_USERS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setArray(1, connection.createArrayOf("integer", userIds.toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getInt(1), rs.getInt(2)));
+    }
+
+    public int findMaxFavoriteId() {
+        Integer max = jdbcTemplate.queryForObject("SELECT MAX(\"favoriteID\") FROM \"userFavoriteReviews\"", Integer.class);
+        return max != null ? max : 0;
+    }
+
+    public AddedSince findUsersWithFavoritesAfter(int favoriteId) {
+        List<Integer> userIds = new ArrayList<>();
+        int[] max = {favoriteId};
+        jdbcTemplate.query(FIND_USERS_AFTER_SQL, (RowCallbackHandler) rs -> {
+            userIds.add(rs.getInt(1));
+            max[0] = Math.max(max[0], rs.getInt(2));
+        }, favoriteId);
+        return new AddedSince(userIds, max[0]);
+    }
+
+    public int deleteDuplicates() {
+        return jdbcTemplate.update(DELETE_DUPLICATES_SQL);
+    }
+
+    public void addUniqueConstraint() {
+        jdbcTemplate.execute(ADD_UNIQUE_CONSTRAINT_SQL);
+    }
+}
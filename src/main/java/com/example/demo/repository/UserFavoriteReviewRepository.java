@@ -1,21 +1,46 @@
 package com.example.demo.repository;
 
+import com.example.demo.model.FavoriteReviewSummary;
 import com.example.demo.model.UserFavoriteReview;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserFavoriteReviewRepository extends JpaRepository<UserFavoriteReview, Integer> {
+    String SUMMARY_SELECT = "SELECT new com.example.demo.model.FavoriteReviewSummary(f.favoriteId, r.reviewID, r.userID, "
+            + "r.contentType, r.contentTitle, r.reviewTitle, SUBSTRING(r.reviewDescription, 1, 300), r.coverFile) "
+            + "FROM UserFavoriteReview f JOIN Review r ON r.reviewID = f.reviewId ";
 
     Optional<UserFavoriteReview> findByUserIdAndReviewId(Integer userId, Integer reviewId);
 
     List<UserFavoriteReview> findByUserId(Integer userId);
 
+    @Query("SELECT f.userId FROM UserFavoriteReview f WHERE f.reviewId = :reviewId")
+    List<Integer> findUserIdsByReviewId(@Param("reviewId") Integer reviewId);
+
+    @Query("SELECT f.reviewId FROM UserFavoriteReview f WHERE f.userId = :userId AND f.reviewId IN :reviewIds")
+    List<Integer> findFavoritedReviewIds(@Param("userId") Integer userId,
+                                         @Param("reviewIds") Collection<Integer> reviewIds);
+
+    @Query(SUMMARY_SELECT + "WHERE f.userId = :userId ORDER BY f.favoriteId DESC")
+    List<FavoriteReviewSummary> findFavoriteSummaries(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE f.userId = :userId AND f.favoriteId < :before ORDER BY f.favoriteId DESC")
+    List<FavoriteReviewSummary> findFavoriteSummariesBefore(@Param("userId") Integer userId,
+                                                            @Param("before") Integer before, Pageable pageable);
+
     Long countByReviewId(Integer reviewId);
 
+    @Query("SELECT f.reviewId, COUNT(f) FROM UserFavoriteReview f GROUP BY f.reviewId")
+    List<Object[]> countFavoritesByReview();
+
     void deleteByUserIdAndReviewId(Integer userId, Integer reviewId);
 
     void deleteByUserId(Integer userId);
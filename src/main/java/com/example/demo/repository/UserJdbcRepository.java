@@ -0,0 +1,110 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.User;
+import com.example.demo.model.UserSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class UserJdbcRepository {
+    private static final String SUMMARY_SELECT = "SELECT \"id\", \"username\", \"email\", \"role\" FROM \"users\" WHERE 1 = 1";
+
+    private static final String CREATE_USERNAME_PREFIX_INDEX_SQL = """
+            CREATE INDEX IF NOT EXISTS "idx_users_username_lower" ON "users" (lower("username") text_pattern_ops)
+            """;
+
+    private static final int STREAM_FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record SearchFields(int id, String username, String email) {
+    }
+
+    /**
+     * Optional filters of the admin user list. Users are always ordered by id, {@code afterId} is the keyset cursor.
+     */
+    public record UserFilter(User.Role role, String usernamePrefix, Integer afterId) {
+    }
+
+    /**
+     * Streams the searchable fields of the users with an id above {@code afterId} ordered by id.
+     */
+    public void readSearchFields(int afterId, Consumer<SearchFields> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT \"id\", \"username\", \"email\" FROM \"users\" WHERE \"id\" > ? ORDER BY \"id\"",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setInt(1, afterId);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(
+                new SearchFields(rs.getInt(1), rs.getString(2), rs.getString(3))));
+    }
+
+    public List<UserSummary> findUsers(UserFilter filter, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = filteredSelect(filter, params);
+        sql.append(" LIMIT ?");
+        params.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> mapSummary(rs), params.toArray());
+    }
+
+    public void streamUsers(UserFilter filter, Consumer<UserSummary> consumer) {
+        List<Object> params = new ArrayList<>();
+        String sql = filteredSelect(filter, params).toString();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapSummary(rs)));
+    }
+
+    /**
+     * Expression index for case-insensitive username prefixes, JPA index annotations cannot declare one.
+     */
+    public void createUsernamePrefixIndex() {
+        jdbcTemplate.execute(CREATE_USERNAME_PREFIX_INDEX_SQL);
+    }
+
+    private StringBuilder filteredSelect(UserFilter filter, List<Object> params) {
+        StringBuilder sql = new StringBuilder(SUMMARY_SELECT);
+        if (filter.role() != null) {
+            sql.append(" AND \"role\" = ?");
+            params.add(filter.role().name());
+        }
+        if (filter.usernamePrefix() != null && !filter.usernamePrefix().isEmpty()) {
+            sql.append(" AND lower(\"username\") LIKE ?");
+            params.add(escapeLike(filter.usernamePrefix().toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (filter.afterId() != null) {
+            sql.append(" AND \"id\" > ?");
+            params.add(filter.afterId());
+        }
+        sql.append(" ORDER BY \"id\"");
+        return sql;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private UserSummary mapSummary(ResultSet rs) throws SQLException {
+        String role = rs.getString("role");
+        return new UserSummary(rs.getInt("id"), rs.getString("username"), rs.getString("email"),
+                role != null ? User.Role.valueOf(role) : null);
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.User;
+import com.example.demo.model.UserReviewCount;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,7 +17,16 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     List<User> findByUsernameContainingIgnoreCase(String username);
 
-    List<User> findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCase(String username, String email);
+    Page<User> findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCase(String username, String email,
+                                                                             Pageable pageable);
 
     long countByRole(User.Role role);
+
+    @Query(value = "SELECT new com.example.demo.model.UserReviewCount(u.id, u.username, u.email, u.role, COUNT(r.reviewID)) "
+            + "FROM User u LEFT JOIN Review r ON r.userID = u.id GROUP BY u.id, u.username, u.email, u.role",
+            countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserReviewCount> findAllWithReviewCounts(Pageable pageable);
+
+    @Query("SELECT u.username FROM User u")
+    List<String> findAllUsernames();
 }
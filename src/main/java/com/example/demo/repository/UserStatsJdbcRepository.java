@@ -0,0 +1,166 @@
+package com.example.demo.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes of the {@code userStats} table. Changes are applied as deltas to existing rows, a missing row is
+ * computed from the reviews, favorites and logs tables instead, since a delta alone would lose the history.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserStatsJdbcRepository {
+    private static final String ADD_SQL = """
+            UPDATE "userStats" SET "reviewCount" = "reviewCount" + ?, "favoritesGiven" = "favoritesGiven" + ?,
+                "lastActivity" = GREATEST("lastActivity", ?)
+            WHERE "userID" = ?
+            """;
+
+    private static final String ADD_RECEIVED_SQL = """
+            UPDATE "userStats" s SET "favoritesReceived" = s."favoritesReceived" + ?
+            FROM "reviews" r
+            WHERE r."reviewID" = ? AND s."userID" = r."userID"
+            """;
+
+    private static final String COMPUTE_SQL = """
+            SELECT u."id",
+                (SELECT COUNT(*) FROM "reviews" r WHERE r."userID" = u."id"),
+                (SELECT COUNT(*) FROM "userFavoriteReviews" f WHERE f."userID" = u."id"),
+                (SELECT COUNT(*) FROM "reviews" r JOIN "userFavoriteReviews" f ON f."reviewID" = r."reviewID"
+                    WHERE r."userID" = u."id"),
+                (SELECT MAX(l."date") FROM "userLogs" l WHERE l."userID" = u."id")
+            FROM "users" u
+            WHERE %s
+            """;
+
+    private static final String RECOMPUTE_SQL = """
+            INSERT INTO "userStats" ("userID", "reviewCount", "favoritesGiven", "favoritesReceived", "lastActivity")
+            """ + COMPUTE_SQL + """
+            ON CONFLICT ("userID") DO UPDATE SET "reviewCount" = EXCLUDED."reviewCount",
+                "favoritesGiven" = EXCLUDED."favoritesGiven", "favoritesReceived" = EXCLUDED."favoritesReceived",
+                "lastActivity" = EXCLUDED."lastActivity"
+            WHERE ("userStats"."reviewCount", "userStats"."favoritesGiven", "userStats"."favoritesReceived",
+                    "userStats"."lastActivity")
+                IS DISTINCT FROM (EXCLUDED."reviewCount", EXCLUDED."favoritesGiven", EXCLUDED."favoritesReceived",
+                    EXCLUDED."lastActivity")
+            """;
+
+    private static final String RECOMPUTE_RANGE_SQL = RECOMPUTE_SQL.formatted("u.\"id\" >= ? AND u.\"id\" < ?");
+    private static final String RECOMPUTE_USERS_SQL = RECOMPUTE_SQL.formatted("u.\"id\" = ANY(?)");
+    private static final String RECOMPUTE_AUTHORS_SQL = RECOMPUTE_SQL.formatted(
+            "u.\"id\" IN (SELECT r.\"userID\" FROM \"reviews\" r WHERE r.\"reviewID\" = ANY(?))");
+
+    private static final String COMPUTE_USER_SQL = COMPUTE_SQL.formatted("u.\"id\" = ?");
+
+    private static final String DELETE_ORPHANS_SQL = """
+            DELETE FROM "userStats" s WHERE NOT EXISTS (SELECT 1 FROM "users" u WHERE u."id" = s."userID")
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record UserStatsRow(long reviewCount, long favoritesGiven, long favoritesReceived,
+                               OffsetDateTime lastActivity) {
+    }
+
+    public record UserDelta(Integer userId, long reviews, long favoritesGiven, OffsetDateTime lastActivity) {
+    }
+
+    /**
+     * Adds the deltas in one batch and returns the users without a stats row, their deltas were not applied.
+     */
+    public List<Integer> addDeltas(List<UserDelta> deltas) {
+        int[][] counts = jdbcTemplate.batchUpdate(ADD_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setLong(1, delta.reviews());
+            ps.setLong(2, delta.favoritesGiven());
+            ps.setObject(3, delta.lastActivity(), Types.TIMESTAMP_WITH_TIMEZONE);
+            ps.setInt(4, delta.userId());
+        });
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < deltas.size(); i++) {
+            if (counts[0][i] == 0) {
+                missing.add(deltas.get(i).userId());
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Adds favorites received to the authors of the reviews and returns the reviews whose author has no stats row
+     * or that no longer exist.
+     */
+    public List<Integer> addFavoritesReceived(Map<Integer, Long> deltasByReview) {
+        List<Map.Entry<Integer, Long>> entries = new ArrayList<>(deltasByReview.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(ADD_RECEIVED_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getValue());
+            ps.setInt(2, entry.getKey());
+        });
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (counts[0][i] == 0) {
+                missing.add(entries.get(i).getKey());
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Recomputes the stats of users in {@code [fromUserId, toUserId)} and returns the number of rows written.
+     */
+    public int recomputeRange(int fromUserId, int toUserId) {
+        return jdbcTemplate.update(RECOMPUTE_RANGE_SQL, fromUserId, toUserId);
+    }
+
+    /**
+     * Computes the stats of a user from the source tables without writing them, or {@code null} if the user
+     * does not exist.
+     */
+    public UserStatsRow compute(Integer userId) {
+        List<UserStatsRow> rows = jdbcTemplate.query(COMPUTE_USER_SQL, (rs, rowNum) -> new UserStatsRow(
+                rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getObject(5, OffsetDateTime.class)), userId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public int recomputeUsers(Collection<Integer> userIds) {
+        return recompute(RECOMPUTE_USERS_SQL, userIds);
+    }
+
+    public int recomputeAuthors(Collection<Integer> reviewIds) {
+        return recompute(RECOMPUTE_AUTHORS_SQL, reviewIds);
+    }
+
+    public UserFavoriteJdbcRepository.IdRange findUserIdRange() {
+        return jdbcTemplate.queryForObject("SELECT MIN(\"id\"), MAX(\"id\") FROM \"users\"",
+                (rs, rowNum) -> {
+                    int min = rs.getInt(1);
+                    return rs.wasNull() ? null : new UserFavoriteJdbcRepository.IdRange(min, rs.getInt(2));
+                });
+    }
+
+    public void delete(Integer userId) {
+        jdbcTemplate.update("DELETE FROM \"userStats\" WHERE \"userID\" = ?", userId);
+    }
+
+    public int deleteOrphans() {
+        return jdbcTemplate.update(DELETE_ORPHANS_SQL);
+    }
+
+    private int recompute(String sql, Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setArray(1, connection.createArrayOf("integer", ids.toArray()));
+            return ps;
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import com.example.demo.event.UserChangedEvent;
+import com.example.demo.model.UserReviewCount;
+import com.example.demo.repository.ReviewRepository;
+import com.example.demo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * User list of the admin panel. Review counts come from one grouped query per page, pages are kept
+ * for a short time so that reloading the panel does not aggregate the reviews table again.
+ */
+@Service
+public class AdminUserListService {
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 100;
+
+    private final UserRepository userRepository;
+    private final ReviewRepository reviewRepository;
+    private final Duration cacheTtl;
+    private final Map<PageKey, CachedOverview> cache = new ConcurrentHashMap<>();
+
+    public enum SortField {
+        REVIEWS, USERNAME, ID
+    }
+
+    public record UserOverview(Page<UserReviewCount> users, long reviewCount) {
+    }
+
+    private record PageKey(int page, int size, SortField sort, Sort.Direction direction) {
+    }
+
+    private record CachedOverview(UserOverview overview, long expiresAt) {
+    }
+
+    public AdminUserListService(UserRepository userRepository, ReviewRepository reviewRepository,
+                                @Value("${app.admin.user-list-cache-ttl:PT30S}") Duration cacheTtl) {
+        this.userRepository = userRepository;
+        this.reviewRepository = reviewRepository;
+        this.cacheTtl = cacheTtl;
+    }
+
+    public UserOverview getUsers(int page, int size, SortField sort, Sort.Direction direction) {
+        PageKey key = new PageKey(Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)), sort, direction);
+        long now = System.currentTimeMillis();
+        CachedOverview cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.overview();
+        }
+
+        Page<UserReviewCount> users = userRepository.findAllWithReviewCounts(
+                PageRequest.of(key.page(), key.size(), toSort(sort, direction)));
+        UserOverview overview = new UserOverview(users, reviewRepository.count());
+        if (!cacheTtl.isZero()) {
+            if (cache.size() >= MAX_CACHED_PAGES) {
+                cache.values().removeIf(entry -> entry.expiresAt() <= now);
+                if (cache.size() >= MAX_CACHED_PAGES) {
+                    cache.clear();
+                }
+            }
+            cache.put(key, new CachedOverview(overview, now + cacheTtl.toMillis()));
+        }
+        return overview;
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        // Role changes and deletions made in the panel should show up on the next load
+        cache.clear();
+    }
+
+    private static Sort toSort(SortField sort, Sort.Direction direction) {
+        return switch (sort) {
+            case REVIEWS -> JpaSort.unsafe(direction, "COUNT(r.reviewID)").andUnsafe(Sort.Direction.ASC, "u.id");
+            case USERNAME -> Sort.by(direction, "username");
+            case ID -> Sort.by(direction, "id");
+        };
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.demo.service;
+
+import com.example.demo.event.ReviewChangedEvent;
+import com.example.demo.event.ReviewsImportedEvent;
+import com.example.demo.event.UserChangedEvent;
+import com.example.demo.repository.ReviewJdbcRepository;
+import com.example.demo.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Autocomplete for content titles and usernames from two in-memory {@link CompletionTrie}s. Titles are matched
+ * case and accent insensitive, weighted by their number of reviews and suggested in their most used spelling.
+ * The tries are built at startup and follow committed changes, requests never query the database.
+ */
+@Slf4j
+@Service
+public class AutocompleteService {
+    private static final int TOP_N = 20;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ReviewJdbcRepository reviewJdbcRepository;
+    private final UserRepository userRepository;
+
+    private volatile CompletionTrie titles = CompletionTrie.empty(TOP_N);
+    private volatile CompletionTrie usernames = CompletionTrie.empty(TOP_N);
+    // Guarded by this: the title of every review and the spellings of every normalized title with their review counts
+    private Map<Integer, String> titleByReview = new HashMap<>();
+    private Map<String, Map<String, Integer>> spellings = new HashMap<>();
+    // Guarded by this: the usernames of every normalized username, e.g. "John" and "john" or "José" and "Jose"
+    private Map<String, Set<String>> usernamesByKey = new HashMap<>();
+    // Changes committed while the tries are read, replayed on top of the read state
+    private List<Runnable> changesDuringLoad;
+    private volatile boolean titlesStale;
+
+    private record TitleSnapshot(Map<Integer, String> titleByReview, Map<String, Map<String, Integer>> spellings,
+                                 CompletionTrie trie) {
+    }
+
+    public AutocompleteService(ReviewJdbcRepository reviewJdbcRepository, UserRepository userRepository) {
+        this.reviewJdbcRepository = reviewJdbcRepository;
+        this.userRepository = userRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        startRecording();
+        Map<String, Set<String>> users = new HashMap<>();
+        for (String username : userRepository.findAllUsernames()) {
+            users.computeIfAbsent(normalize(username), key -> new TreeSet<>()).add(username);
+        }
+        Map<String, CompletionTrie.Completion> userCompletions = new HashMap<>();
+        users.forEach((key, names) ->
+                userCompletions.put(key, new CompletionTrie.Completion(preferredUsername(names), names.size())));
+        CompletionTrie userTrie = CompletionTrie.build(userCompletions, TOP_N);
+        TitleSnapshot snapshot = readTitles();
+        synchronized (this) {
+            usernamesByKey = users;
+            usernames = userTrie;
+            apply(snapshot);
+        }
+        log.info("Loaded autocomplete for {} content titles and {} usernames", titles.size(), usernames.size());
+    }
+
+    public List<CompletionTrie.Completion> completeTitles(String prefix, int limit) {
+        return complete(titles, prefix, limit);
+    }
+
+    public List<CompletionTrie.Completion> completeUsernames(String prefix, int limit) {
+        return complete(usernames, prefix, limit);
+    }
+
+    @TransactionalEventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        Integer reviewId = event.review().getReviewID();
+        String title = event.type() == ReviewChangedEvent.Type.DELETED ? null : event.review().getContentTitle();
+        change(() -> setTitle(reviewId, title));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewsImported(ReviewsImportedEvent event) {
+        // Imports do not report the inserted titles, the next rebuild picks them up
+        titlesStale = true;
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        String username = event.user().getUsername();
+        switch (event.type()) {
+            case CREATED -> change(() -> setUsername(username, true));
+            case DELETED -> change(() -> setUsername(username, false));
+            default -> {
+                // Usernames never change
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.autocomplete.rebuild-check-interval:PT30S}")
+    public void rebuildStaleTitles() {
+        if (titlesStale) {
+            titlesStale = false;
+            startRecording();
+            TitleSnapshot snapshot = readTitles();
+            synchronized (this) {
+                apply(snapshot);
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        String withoutMarks = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(withoutMarks.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    private List<CompletionTrie.Completion> complete(CompletionTrie trie, String prefix, int limit) {
+        String normalized = prefix == null ? "" : normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return trie.complete(normalized, Math.min(limit, TOP_N));
+    }
+
+    private synchronized void change(Runnable change) {
+        if (changesDuringLoad != null) {
+            changesDuringLoad.add(change);
+        }
+        change.run();
+    }
+
+    private synchronized void startRecording() {
+        changesDuringLoad = new ArrayList<>();
+    }
+
+    /**
+     * Swaps in freshly read titles and replays the changes committed meanwhile. Changes set the final state
+     * of a review or user, so replaying one that the read already saw has no effect.
+     */
+    private void apply(TitleSnapshot snapshot) {
+        titleByReview = snapshot.titleByReview();
+        spellings = snapshot.spellings();
+        titles = snapshot.trie();
+        changesDuringLoad.forEach(Runnable::run);
+        changesDuringLoad = null;
+    }
+
+    private TitleSnapshot readTitles() {
+        Map<Integer, String> byReview = new HashMap<>();
+        Map<String, Map<String, Integer>> counts = new HashMap<>();
+        reviewJdbcRepository.readContentTitles((reviewId, title) -> {
+            if (title != null && !normalize(title).isEmpty()) {
+                byReview.put(reviewId, title);
+                counts.computeIfAbsent(normalize(title), key -> new HashMap<>()).merge(title, 1, Integer::sum);
+            }
+        });
+
+        Map<String, CompletionTrie.Completion> completions = new HashMap<>();
+        counts.forEach((key, variants) ->
+                completions.put(key, new CompletionTrie.Completion(preferredSpelling(variants), total(variants))));
+        return new TitleSnapshot(byReview, counts, CompletionTrie.build(completions, TOP_N));
+    }
+
+    private void setTitle(Integer reviewId, String title) {
+        String previous = titleByReview.get(reviewId);
+        if (previous == null ? title == null : previous.equals(title)) {
+            return;
+        }
+        CompletionTrie trie = titles;
+        if (previous != null) {
+            trie = changeTitleCount(trie, previous, -1);
+            titleByReview.remove(reviewId);
+        }
+        if (title != null && !normalize(title).isEmpty()) {
+            trie = changeTitleCount(trie, title, 1);
+            titleByReview.put(reviewId, title);
+        }
+        titles = trie;
+    }
+
+    /**
+     * Adds or removes one username, users whose names normalize to the same key share its completion.
+     */
+    private void setUsername(String username, boolean exists) {
+        String key = normalize(username);
+        if (key.isEmpty()) {
+            return;
+        }
+        Set<String> names = exists ? usernamesByKey.computeIfAbsent(key, k -> new TreeSet<>()) : usernamesByKey.get(key);
+        if (names == null || !(exists ? names.add(username) : names.remove(username))) {
+            return;
+        }
+        if (names.isEmpty()) {
+            usernamesByKey.remove(key);
+            usernames = usernames.remove(key);
+        } else {
+            usernames = usernames.put(key, preferredUsername(names), names.size());
+        }
+    }
+
+    private static String preferredUsername(Set<String> names) {
+        return names.iterator().next();
+    }
+
+    private CompletionTrie changeTitleCount(CompletionTrie trie, String title, int delta) {
+        String key = normalize(title);
+        if (key.isEmpty()) {
+            return trie;
+        }
+        Map<String, Integer> variants = spellings.computeIfAbsent(key, k -> new HashMap<>());
+        variants.merge(title, delta, Integer::sum);
+        variants.values().removeIf(count -> count <= 0);
+        if (variants.isEmpty()) {
+            spellings.remove(key);
+            return trie.remove(key);
+        }
+        return trie.put(key, preferredSpelling(variants), total(variants));
+    }
+
+    private static String preferredSpelling(Map<String, Integer> variants) {
+        return variants.entrySet().stream()
+                .max(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .orElseThrow();
+    }
+
+    private static long total(Map<String, Integer> variants) {
+        return variants.values().stream().mapToLong(Integer::longValue).sum();
+    }
+}
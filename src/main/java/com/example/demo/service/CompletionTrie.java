@@ -0,0 +1,247 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable compressed prefix trie (radix tree) of weighted completions. Every node stores the best completions
+ * of its subtree, a lookup walks the prefix and returns that list without visiting the subtree.
+ * Changes copy the nodes on the path to the key and return a new trie, readers keep using the old one
+ * without any locking.
+ */
+public final class CompletionTrie {
+    private static final Comparator<Completion> BY_WEIGHT = Comparator.comparingLong(Completion::weight).reversed()
+            .thenComparing(Completion::text);
+    private static final Completion[] NONE = new Completion[0];
+
+    private final Node root;
+    private final int topN;
+    private final int size;
+
+    public record Completion(String text, long weight) {
+    }
+
+    private record Node(String label, char[] keys, Node[] children, Completion terminal, Completion[] top) {
+    }
+
+    private CompletionTrie(Node root, int topN, int size) {
+        this.root = root;
+        this.topN = topN;
+        this.size = size;
+    }
+
+    public static CompletionTrie empty(int topN) {
+        return new CompletionTrie(new Node("", new char[0], new Node[0], null, NONE), topN, 0);
+    }
+
+    /**
+     * Builds the trie bottom-up in one pass over the sorted keys, every node and its best completions are
+     * computed once instead of being copied by a {@link #put} per key.
+     */
+    public static CompletionTrie build(Map<String, Completion> completions, int topN) {
+        CompletionTrie trie = empty(topN);
+        if (completions.isEmpty()) {
+            return trie;
+        }
+        String[] keys = completions.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        Completion[] values = new Completion[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = completions.get(keys[i]);
+        }
+        return new CompletionTrie(trie.build(keys, values, 0, keys.length, 0, 0), topN, keys.length);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Best completions for keys starting with the prefix, highest weight first. At most {@code topN} are kept.
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        Node node = root;
+        int depth = 0;
+        while (depth < prefix.length()) {
+            int index = Arrays.binarySearch(node.keys(), prefix.charAt(depth));
+            if (index < 0) {
+                return List.of();
+            }
+            node = node.children()[index];
+            String label = node.label();
+            int matched = commonPrefix(label, 0, prefix, depth);
+            if (matched < label.length() && depth + matched < prefix.length()) {
+                return List.of();
+            }
+            depth += matched;
+        }
+        Completion[] top = node.top();
+        return List.of(Arrays.copyOf(top, Math.min(top.length, Math.max(0, limit))));
+    }
+
+    public CompletionTrie put(String key, String text, long weight) {
+        if (weight <= 0) {
+            return remove(key);
+        }
+        boolean[] added = {false};
+        Node newRoot = put(root, key, 0, new Completion(text, weight), added);
+        return new CompletionTrie(newRoot, topN, added[0] ? size + 1 : size);
+    }
+
+    public CompletionTrie remove(String key) {
+        boolean[] removed = {false};
+        Node newRoot = remove(root, key, 0, removed);
+        return removed[0] ? new CompletionTrie(newRoot != null ? newRoot : empty(topN).root, topN, size - 1) : this;
+    }
+
+    private Node put(Node node, String key, int depth, Completion value, boolean[] added) {
+        if (depth == key.length()) {
+            added[0] = node.terminal() == null;
+            return node(node.label(), node.keys(), node.children(), value);
+        }
+        char first = key.charAt(depth);
+        int index = Arrays.binarySearch(node.keys(), first);
+        if (index < 0) {
+            added[0] = true;
+            Node leaf = node(key.substring(depth), new char[0], new Node[0], value);
+            return withChild(node, -index - 1, leaf, true);
+        }
+
+        Node child = node.children()[index];
+        int matched = commonPrefix(child.label(), 0, key, depth);
+        if (matched < child.label().length()) {
+            // Split the edge where the key leaves it
+            Node tail = new Node(child.label().substring(matched), child.keys(), child.children(), child.terminal(), child.top());
+            child = node(child.label().substring(0, matched), new char[]{tail.label().charAt(0)}, new Node[]{tail}, null);
+        }
+        return withChild(node, index, put(child, key, depth + matched, value, added), false);
+    }
+
+    private Node remove(Node node, String key, int depth, boolean[] removed) {
+        if (depth == key.length()) {
+            if (node.terminal() == null) {
+                return node;
+            }
+            removed[0] = true;
+            return compact(node(node.label(), node.keys(), node.children(), null));
+        }
+        int index = Arrays.binarySearch(node.keys(), key.charAt(depth));
+        if (index < 0) {
+            return node;
+        }
+        Node child = node.children()[index];
+        int matched = commonPrefix(child.label(), 0, key, depth);
+        if (matched < child.label().length()) {
+            return node;
+        }
+        Node newChild = remove(child, key, depth + matched, removed);
+        if (!removed[0]) {
+            return node;
+        }
+        Node updated = newChild == null ? withoutChild(node, index) : withChild(node, index, newChild, false);
+        return node == root ? updated : compact(updated);
+    }
+
+    /**
+     * Node for the sorted keys in {@code [from, to)}, which share their first {@code depth} characters.
+     * The node's edge label starts at {@code labelStart}.
+     */
+    private Node build(String[] keys, Completion[] values, int from, int to, int labelStart, int depth) {
+        String label = keys[from].substring(labelStart, depth);
+        Completion terminal = null;
+        if (keys[from].length() == depth) {
+            terminal = values[from];
+            from++;
+        }
+        List<Character> childKeys = new ArrayList<>();
+        List<Node> children = new ArrayList<>();
+        while (from < to) {
+            char first = keys[from].charAt(depth);
+            int groupEnd = from + 1;
+            while (groupEnd < to && keys[groupEnd].charAt(depth) == first) {
+                groupEnd++;
+            }
+            // Sorted keys: the prefix shared by the first and last key is shared by the whole group
+            int shared = commonPrefix(keys[from], depth, keys[groupEnd - 1], depth);
+            childKeys.add(first);
+            children.add(build(keys, values, from, groupEnd, depth, depth + shared));
+            from = groupEnd;
+        }
+        char[] keyArray = new char[childKeys.size()];
+        for (int i = 0; i < keyArray.length; i++) {
+            keyArray[i] = childKeys.get(i);
+        }
+        return node(label, keyArray, children.toArray(new Node[0]), terminal);
+    }
+
+    /**
+     * Drops nodes that lead nowhere and merges a node without completion into its only child.
+     */
+    private static Node compact(Node node) {
+        if (node.terminal() != null) {
+            return node;
+        }
+        if (node.children().length == 0) {
+            return null;
+        }
+        if (node.children().length == 1) {
+            Node child = node.children()[0];
+            return new Node(node.label() + child.label(), child.keys(), child.children(), child.terminal(), child.top());
+        }
+        return node;
+    }
+
+    private Node withChild(Node node, int index, Node child, boolean insert) {
+        char[] keys;
+        Node[] children;
+        if (insert) {
+            keys = new char[node.keys().length + 1];
+            children = new Node[node.children().length + 1];
+            System.arraycopy(node.keys(), 0, keys, 0, index);
+            System.arraycopy(node.children(), 0, children, 0, index);
+            System.arraycopy(node.keys(), index, keys, index + 1, node.keys().length - index);
+            System.arraycopy(node.children(), index, children, index + 1, node.children().length - index);
+        } else {
+            keys = node.keys().clone();
+            children = node.children().clone();
+        }
+        keys[index] = child.label().charAt(0);
+        children[index] = child;
+        return node(node.label(), keys, children, node.terminal());
+    }
+
+    private Node withoutChild(Node node, int index) {
+        char[] keys = new char[node.keys().length - 1];
+        Node[] children = new Node[node.children().length - 1];
+        System.arraycopy(node.keys(), 0, keys, 0, index);
+        System.arraycopy(node.children(), 0, children, 0, index);
+        System.arraycopy(node.keys(), index + 1, keys, index, keys.length - index);
+        System.arraycopy(node.children(), index + 1, children, index, children.length - index);
+        return node(node.label(), keys, children, node.terminal());
+    }
+
+    private Node node(String label, char[] keys, Node[] children, Completion terminal) {
+        List<Completion> candidates = new ArrayList<>();
+        if (terminal != null) {
+            candidates.add(terminal);
+        }
+        for (Node child : children) {
+            candidates.addAll(Arrays.asList(child.top()));
+        }
+        candidates.sort(BY_WEIGHT);
+        Completion[] top = candidates.subList(0, Math.min(topN, candidates.size())).toArray(NONE);
+        return new Node(label, keys, children, terminal, top);
+    }
+
+    private static int commonPrefix(String label, int labelOffset, String key, int keyOffset) {
+        int length = Math.min(label.length() - labelOffset, key.length() - keyOffset);
+        int i = 0;
+        while (i < length && label.charAt(labelOffset + i) == key.charAt(keyOffset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the content of the most requested covers in direct buffers outside the Java heap.
+ * Access frequencies are tracked in a small count-min sketch, a cover only replaces cached ones
+ * that have been requested less often (TinyLFU style admission), so one-off requests never flush popular covers.
+ */
+@Slf4j
+@Service
+public class CoverByteCache {
+    private static final int MIN_FREQUENCY_TO_REPLACE = 2;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch = new FrequencySketch(8192);
+    private final ReentrantLock admissionLock = new ReentrantLock();
+    private volatile long usedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    private record Entry(String etag, ByteBuffer content) {
+    }
+
+    public record Stats(long hits, long misses, double hitRatio, long bytesServed, long evictions, long rejections,
+                        int entries, long usedBytes, long maxBytes) {
+    }
+
+    public CoverByteCache(@Value("${app.uploads.cache.max-size:64MB}") DataSize maxSize,
+                          @Value("${app.uploads.cache.max-entry-size:1MB}") DataSize maxEntrySize) {
+        this.maxBytes = maxSize.toBytes();
+        this.maxEntryBytes = Math.min(maxEntrySize.toBytes(), maxBytes);
+    }
+
+    /**
+     * Returns a read-only view of the cached content, or null when the cover is not cached.
+     */
+    public ByteBuffer get(CoverDeliveryService.CoverFile cover) {
+        sketch.increment(cover.name());
+        Entry entry = entries.get(cover.name());
+        if (entry == null || !entry.etag().equals(cover.etag())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.content().duplicate();
+    }
+
+    /**
+     * Reads the cover into the cache if it is requested often enough to earn a place, returns null otherwise.
+     */
+    public ByteBuffer load(CoverDeliveryService.CoverFile cover) {
+        if (maxBytes == 0 || cover.path() == null || cover.length() > maxEntryBytes || !mayAdmit(cover)) {
+            return null;
+        }
+
+        ByteBuffer content = ByteBuffer.allocateDirect((int) cover.length());
+        try (FileChannel channel = FileChannel.open(cover.path(), StandardOpenOption.READ)) {
+            while (content.hasRemaining() && channel.read(content, content.position()) >= 0) {
+                // read until the buffer is full
+            }
+            if (content.hasRemaining()) {
+                return null;
+            }
+        } catch (IOException e) {
+            log.debug("Failed to load cover {} into the cache", cover.name(), e);
+            return null;
+        }
+        content.flip();
+        ByteBuffer readOnly = content.asReadOnlyBuffer();
+
+        admissionLock.lock();
+        try {
+            if (!makeRoom(cover.name(), readOnly.capacity())) {
+                rejections.increment();
+                return null;
+            }
+            Entry previous = entries.put(cover.name(), new Entry(cover.etag(), readOnly));
+            if (previous != null) {
+                usedBytes -= previous.content().capacity();
+            }
+            usedBytes += readOnly.capacity();
+        } finally {
+            admissionLock.unlock();
+        }
+        return readOnly.duplicate();
+    }
+
+    public void recordServed(long bytes) {
+        bytesServed.add(bytes);
+    }
+
+    public void invalidate(String fileName) {
+        remove(fileName);
+        for (CoverRenditionService.Size size : CoverRenditionService.Size.values()) {
+            remove(CoverRenditionService.renditionName(fileName, size));
+        }
+    }
+
+    public Stats getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        admissionLock.lock();
+        try {
+            return new Stats(hitCount, missCount, requests == 0 ? 0 : (double) hitCount / requests, bytesServed.sum(),
+                    evictions.sum(), rejections.sum(), entries.size(), usedBytes, maxBytes);
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    private void remove(String fileName) {
+        admissionLock.lock();
+        try {
+            Entry removed = entries.remove(fileName);
+            if (removed != null) {
+                usedBytes -= removed.content().capacity();
+            }
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    private boolean mayAdmit(CoverDeliveryService.CoverFile cover) {
+        if (entries.containsKey(cover.name()) || usedBytes + cover.length() <= maxBytes) {
+            return true;
+        }
+        // Covers requested only once never displace anything, skip the victim scan for the long tail
+        if (sketch.frequency(cover.name()) < MIN_FREQUENCY_TO_REPLACE) {
+            return false;
+        }
+        admissionLock.lock();
+        try {
+            if (usedBytes + cover.length() <= maxBytes) {
+                return true;
+            }
+            String victim = coldestEntry();
+            return victim != null && sketch.frequency(cover.name()) > sketch.frequency(victim);
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    private boolean makeRoom(String candidate, long size) {
+        Entry existing = entries.get(candidate);
+        long needed = size - (existing != null ? existing.content().capacity() : 0);
+        int candidateFrequency = sketch.frequency(candidate);
+        while (usedBytes + needed > maxBytes) {
+            String victim = coldestEntry();
+            if (victim == null || sketch.frequency(victim) >= candidateFrequency) {
+                return false;
+            }
+            Entry evicted = entries.remove(victim);
+            usedBytes -= evicted.content().capacity();
+            evictions.increment();
+        }
+        return true;
+    }
+
+    private String coldestEntry() {
+        // The cache holds at most a few thousand covers and admissions are rare compared to hits,
+        // a linear scan is cheaper than maintaining an ordered structure on every read
+        String coldest = null;
+        int coldestFrequency = Integer.MAX_VALUE;
+        for (String name : entries.keySet()) {
+            int frequency = sketch.frequency(name);
+            if (frequency < coldestFrequency) {
+                coldest = name;
+                coldestFrequency = frequency;
+            }
+        }
+        return coldest;
+    }
+
+    /**
+     * Count-min sketch with 4 rows of 4 bit like saturating counters. All counters are halved after
+     * every {@code 10 * width} increments so that covers which stopped being popular age out.
+     * Updates are not synchronized, a lost increment only makes the estimate slightly less exact.
+     */
+    private static class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final int[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private final AtomicInteger additions = new AtomicInteger();
+
+        FrequencySketch(int width) {
+            int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+            this.counters = new int[DEPTH][size];
+            this.mask = size - 1;
+            this.sampleSize = 10 * size;
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                }
+            }
+            if (additions.incrementAndGet() >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            additions.set(0);
+            for (int[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+        }
+    }
+}
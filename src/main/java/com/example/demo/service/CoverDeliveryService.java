@@ -0,0 +1,112 @@
+package com.example.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoverDeliveryService {
+    private static final int MAX_CACHED_FILES = 20_000;
+    private static final Pattern CONTENT_HASH_PREFIX = Pattern.compile("^[0-9a-f]{64}");
+
+    private final CoverRenditionService coverRenditionService;
+    private final CoverPathResolver coverPathResolver;
+    private final CoverStorage coverStorage;
+    private final CoverByteCache coverByteCache;
+    private final Map<String, CoverFile> metadataCache = new ConcurrentHashMap<>();
+
+    /**
+     * Metadata of a servable cover. {@code path} is null when the cover lives in a remote store
+     * and has to be fetched through {@link #presignedUrl}.
+     */
+    public record CoverFile(String name, Path path, long length, long lastModified, String etag,
+                            MediaType mediaType, boolean fallback) {
+    }
+
+    public Optional<CoverFile> resolve(String fileName, CoverRenditionService.Size size) {
+        if (!coverPathResolver.isValidName(fileName)) {
+            return Optional.empty();
+        }
+        if (size != null) {
+            Optional<CoverFile> rendition = lookup(CoverRenditionService.renditionName(fileName, size));
+            if (rendition.isPresent()) {
+                return rendition;
+            }
+            Optional<CoverFile> original = lookup(fileName);
+            original.ifPresent(file -> coverRenditionService.scheduleRenditions(fileName));
+            return original.map(file -> new CoverFile(file.name(), file.path(), file.length(), file.lastModified(),
+                    file.etag(), file.mediaType(), true));
+        }
+        return lookup(fileName);
+    }
+
+    public Optional<URI> presignedUrl(CoverFile file, Duration ttl, String cacheControl) {
+        return coverStorage.presignedUrl(file.name(), ttl, cacheControl);
+    }
+
+    public void evict(String fileName) {
+        coverByteCache.invalidate(fileName);
+        metadataCache.remove(fileName);
+        for (CoverRenditionService.Size size : CoverRenditionService.Size.values()) {
+            metadataCache.remove(CoverRenditionService.renditionName(fileName, size));
+        }
+    }
+
+    private Optional<CoverFile> lookup(String fileName) {
+        CoverFile cached = metadataCache.get(fileName);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<CoverStorage.StoredObject> stored;
+        try {
+            stored = coverStorage.stat(fileName);
+        } catch (IOException e) {
+            log.warn("Failed to read metadata of cover {}", fileName, e);
+            return Optional.empty();
+        }
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+
+        CoverStorage.StoredObject object = stored.get();
+        CoverFile file = new CoverFile(fileName, object.localPath(), object.length(), object.lastModified(),
+                etagFor(object), MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM), false);
+        if (metadataCache.size() >= MAX_CACHED_FILES) {
+            trimCache();
+        }
+        metadataCache.put(fileName, file);
+        return Optional.of(file);
+    }
+
+    private String etagFor(CoverStorage.StoredObject object) {
+        String fileName = object.name();
+        if (CONTENT_HASH_PREFIX.matcher(fileName).find()) {
+            return "\"" + fileName.substring(0, fileName.lastIndexOf('.')) + "\"";
+        }
+        return "\"" + Long.toHexString(object.length()) + "-" + Long.toHexString(object.lastModified()) + "\"";
+    }
+
+    private void trimCache() {
+        Iterator<String> names = metadataCache.keySet().iterator();
+        for (int i = 0; i < MAX_CACHED_FILES / 10 && names.hasNext(); i++) {
+            names.next();
+            names.remove();
+        }
+    }
+}
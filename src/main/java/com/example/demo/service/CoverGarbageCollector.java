@@ -0,0 +1,209 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ReviewRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reconciles the cover store against {@code Review.coverFile} and deletes covers and renditions nothing refers to.
+ * Objects whose storage timestamp is younger than the grace period are skipped, they may belong to an upload whose
+ * transaction is still open on any node.
+ */
+@Slf4j
+@Service
+public class CoverGarbageCollector {
+    private static final int BATCH_SIZE = 500;
+    private static final int BATCHES_IN_FLIGHT_PER_THREAD = 2;
+
+    private final CoverStorage coverStorage;
+    private final CoverStorageService coverStorageService;
+    private final CoverDeliveryService coverDeliveryService;
+    private final CoverPathResolver coverPathResolver;
+    private final ReviewRepository reviewRepository;
+    private final ExecutorService workers;
+    private final int threads;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile CollectionResult lastResult;
+
+    @Value("${app.uploads.gc-grace-period:PT1H}")
+    private Duration gracePeriod;
+
+    public record CollectionResult(long scanned, long deletedCovers, long deletedRenditions, long deletedTempFiles,
+                                   LocalDateTime startedAt, LocalDateTime finishedAt) {
+    }
+
+    public CoverGarbageCollector(CoverStorage coverStorage, CoverStorageService coverStorageService,
+                                 CoverDeliveryService coverDeliveryService, CoverPathResolver coverPathResolver,
+                                 ReviewRepository reviewRepository) {
+        this.coverStorage = coverStorage;
+        this.coverStorageService = coverStorageService;
+        this.coverDeliveryService = coverDeliveryService;
+        this.coverPathResolver = coverPathResolver;
+        this.reviewRepository = reviewRepository;
+        this.threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        this.workers = Executors.newFixedThreadPool(threads);
+    }
+
+    @Scheduled(initialDelayString = "${app.uploads.gc-initial-delay:PT10M}", fixedDelayString = "${app.uploads.gc-interval:PT6H}")
+    public void collectScheduled() {
+        // The scan runs on its own thread, the shared scheduler keeps serving the short jobs
+        start();
+    }
+
+    public boolean start() {
+        if (running.get()) {
+            return false;
+        }
+        Thread thread = new Thread(this::collect, "cover-gc");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public CollectionResult getLastResult() {
+        return lastResult;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void collect() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        long cutoff = System.currentTimeMillis() - gracePeriod.toMillis();
+        AtomicLong scanned = new AtomicLong();
+        AtomicLong deletedCovers = new AtomicLong();
+        AtomicLong deletedRenditions = new AtomicLong();
+        Semaphore inFlight = new Semaphore(threads * BATCHES_IN_FLIGHT_PER_THREAD);
+        try {
+            List<CoverStorage.StoredObject> batch = new ArrayList<>(BATCH_SIZE);
+            coverStorage.list(object -> {
+                scanned.incrementAndGet();
+                if (object.lastModified() >= cutoff) {
+                    return;
+                }
+                batch.add(object);
+                if (batch.size() >= BATCH_SIZE) {
+                    submit(new ArrayList<>(batch), inFlight, deletedCovers, deletedRenditions);
+                    batch.clear();
+                }
+            });
+            if (!batch.isEmpty()) {
+                submit(batch, inFlight, deletedCovers, deletedRenditions);
+            }
+            // Wait for the outstanding batches
+            inFlight.acquire(threads * BATCHES_IN_FLIGHT_PER_THREAD);
+            inFlight.release(threads * BATCHES_IN_FLIGHT_PER_THREAD);
+
+            long deletedTempFiles = deleteStaleTempFiles(cutoff);
+            lastResult = new CollectionResult(scanned.get(), deletedCovers.get(), deletedRenditions.get(),
+                    deletedTempFiles, startedAt, LocalDateTime.now());
+            log.info("Cover garbage collection scanned {} objects, deleted {} covers, {} renditions and {} temp files",
+                    scanned.get(), deletedCovers.get(), deletedRenditions.get(), deletedTempFiles);
+        } catch (IOException | RuntimeException e) {
+            log.error("Cover garbage collection failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Cover garbage collection interrupted");
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void submit(List<CoverStorage.StoredObject> batch, Semaphore inFlight,
+                        AtomicLong deletedCovers, AtomicLong deletedRenditions) {
+        inFlight.acquireUninterruptibly();
+        try {
+            workers.execute(() -> {
+                try {
+                    reclaim(batch, deletedCovers, deletedRenditions);
+                } catch (RuntimeException e) {
+                    log.error("Failed to reclaim a batch of {} covers", batch.size(), e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void reclaim(List<CoverStorage.StoredObject> batch, AtomicLong deletedCovers, AtomicLong deletedRenditions) {
+        List<String> names = batch.stream().map(CoverStorage.StoredObject::name).toList();
+        Set<String> referenced = new HashSet<>(reviewRepository.findReferencedCoverFiles(names));
+        Set<String> referencedBases = new HashSet<>();
+        for (String name : referenced) {
+            referencedBases.add(name.substring(0, name.lastIndexOf('.')));
+        }
+
+        for (String name : names) {
+            if (referenced.contains(name)) {
+                continue;
+            }
+            String renditionBase = CoverRenditionService.renditionBase(name);
+            if (renditionBase != null) {
+                if (referencedBases.contains(renditionBase)
+                        || reviewRepository.existsByCoverFileStartingWith(renditionBase + ".")) {
+                    continue;
+                }
+                try {
+                    coverStorage.delete(name);
+                    coverDeliveryService.evict(name);
+                    deletedRenditions.incrementAndGet();
+                } catch (IOException e) {
+                    log.warn("Failed to delete orphaned rendition {}", name, e);
+                }
+                continue;
+            }
+            // Re-checks the reference count right before deleting
+            if (coverStorageService.deleteIfUnreferenced(name)) {
+                deletedCovers.incrementAndGet();
+            }
+        }
+    }
+
+    private long deleteStaleTempFiles(long cutoff) throws IOException {
+        Path root = coverPathResolver.getRoot();
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        long deleted = 0;
+        try (DirectoryStream<Path> tempFiles = Files.newDirectoryStream(root, ".*.tmp")) {
+            for (Path tempFile : tempFiles) {
+                if (Files.getLastModifiedTime(tempFile).toMillis() < cutoff && Files.deleteIfExists(tempFile)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+}
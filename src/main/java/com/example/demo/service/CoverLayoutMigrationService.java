@@ -0,0 +1,126 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves covers from the flat uploads directory into the sharded layout while the application keeps serving them.
+ * Every file is moved with a single atomic rename, readers fall back to the flat location until it is gone.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoverLayoutMigrationService {
+    private static final int IN_FLIGHT_PER_THREAD = 64;
+
+    private final CoverPathResolver coverPathResolver;
+    private final CoverDeliveryService coverDeliveryService;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong moved = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile ExecutorService workers;
+
+    public record MigrationStatus(boolean running, long scanned, long moved, long failed,
+                                  LocalDateTime startedAt, LocalDateTime finishedAt) {
+    }
+
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        scanned.set(0);
+        moved.set(0);
+        failed.set(0);
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        workers = Executors.newFixedThreadPool(threads);
+        Thread coordinator = new Thread(() -> migrate(threads), "cover-layout-migration");
+        coordinator.setDaemon(true);
+        coordinator.start();
+        return true;
+    }
+
+    public MigrationStatus getStatus() {
+        return new MigrationStatus(running.get(), scanned.get(), moved.get(), failed.get(), startedAt, finishedAt);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ExecutorService current = workers;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    private void migrate(int threads) {
+        Semaphore inFlight = new Semaphore(threads * IN_FLIGHT_PER_THREAD);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(coverPathResolver.getRoot(),
+                file -> Files.isRegularFile(file) && !file.getFileName().toString().startsWith("."))) {
+            for (Path file : files) {
+                scanned.incrementAndGet();
+                inFlight.acquire();
+                workers.execute(() -> {
+                    try {
+                        moveToShard(file);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            log.info("Cover layout migration finished: {} moved, {} failed", moved.get(), failed.get());
+        } catch (IOException e) {
+            log.error("Cover layout migration aborted", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Cover layout migration interrupted");
+        } finally {
+            workers.shutdownNow();
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    private void moveToShard(Path legacy) {
+        String fileName = legacy.getFileName().toString();
+        if (!coverPathResolver.isValidName(fileName)) {
+            return;
+        }
+        try {
+            Path target = coverPathResolver.prepareTarget(fileName);
+            if (Files.exists(target)) {
+                // Same name means same content for hashed covers, the flat copy is redundant
+                Files.deleteIfExists(legacy);
+            } else {
+                Files.move(legacy, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            coverDeliveryService.evict(fileName);
+            moved.incrementAndGet();
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            log.warn("Failed to move cover {} into the sharded layout", fileName, e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Maps cover file names to their location below the uploads directory.
+ * New files live in two levels of hex prefix directories (uploads/ab/cd/abcd...jpg),
+ * files stored before the sharded layout are still found in the flat uploads directory.
+ */
+@Component
+public class CoverPathResolver {
+    private static final String UPLOADS_DIR = "uploads";
+    private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9_-]+\\.[A-Za-z0-9]+");
+    private static final Pattern CONTENT_HASH_PREFIX = Pattern.compile("^[0-9a-f]{4}");
+
+    private final Path root = Paths.get(UPLOADS_DIR).toAbsolutePath().normalize();
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public boolean isValidName(String fileName) {
+        return fileName != null && VALID_NAME.matcher(fileName).matches();
+    }
+
+    public Path shardedPath(String fileName) {
+        String prefix = CONTENT_HASH_PREFIX.matcher(fileName).find()
+                ? fileName
+                : DigestUtils.md5DigestAsHex(fileName.getBytes(StandardCharsets.UTF_8));
+        return root.resolve(prefix.substring(0, 2)).resolve(prefix.substring(2, 4)).resolve(fileName);
+    }
+
+    public Path legacyPath(String fileName) {
+        return root.resolve(fileName);
+    }
+
+    public Optional<Path> resolveExisting(String fileName) {
+        Path sharded = shardedPath(fileName);
+        if (Files.isRegularFile(sharded)) {
+            return Optional.of(sharded);
+        }
+        Path legacy = legacyPath(fileName);
+        return Files.isRegularFile(legacy) ? Optional.of(legacy) : Optional.empty();
+    }
+
+    public Path prepareTarget(String fileName) throws IOException {
+        Path target = shardedPath(fileName);
+        Files.createDirectories(target.getParent());
+        return target;
+    }
+
+    public boolean delete(String fileName) throws IOException {
+        boolean deleted = Files.deleteIfExists(shardedPath(fileName));
+        return Files.deleteIfExists(legacyPath(fileName)) || deleted;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.demo.service;
+
+import com.example.demo.event.ReviewChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Service
+public class CoverRenditionService {
+    private static final float JPEG_QUALITY = 0.8f;
+    private static final int QUEUE_CAPACITY = 500;
+    private static final Pattern RENDITION_NAME = Pattern.compile("(.+)_(thumb|card|full)\\.jpg");
+    // Larger sources are rejected before decoding, the header alone can declare sizes that exhaust the heap
+    private static final long MAX_SOURCE_PIXELS = 50_000_000L;
+    private static final int MAX_FAILED_COVERS = 10_000;
+
+    private final CoverStorage coverStorage;
+    private final CoverPathResolver coverPathResolver;
+    private final ThreadPoolExecutor workers;
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+    // Covers without renditions, e.g. unsupported formats, they are served as the original and not read again
+    private final Set<String> failed = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_FAILED_COVERS;
+                }
+            }));
+
+    public enum Size {
+        THUMB(160), CARD(480), FULL(1200);
+
+        private final int maxWidth;
+
+        Size(int maxWidth) {
+            this.maxWidth = maxWidth;
+        }
+    }
+
+    public CoverRenditionService(CoverStorage coverStorage, CoverPathResolver coverPathResolver) {
+        this.coverStorage = coverStorage;
+        this.coverPathResolver = coverPathResolver;
+        ImageIO.setUseCache(false);
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @TransactionalEventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        String coverFile = event.review().getCoverFile();
+        if (event.type() != ReviewChangedEvent.Type.DELETED && coverFile != null) {
+            scheduleRenditions(coverFile);
+        }
+    }
+
+    public void scheduleRenditions(String coverFile) {
+        if (failed.contains(coverFile) || !inProgress.add(coverFile)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generateRenditions(coverFile);
+                } finally {
+                    inProgress.remove(coverFile);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(coverFile);
+            log.debug("Rendition queue is full, cover {} will be processed on a later request", coverFile);
+        }
+    }
+
+    public void deleteRenditions(String coverFile) {
+        failed.remove(coverFile);
+        for (Size size : Size.values()) {
+            try {
+                coverStorage.delete(renditionName(coverFile, size));
+            } catch (IOException e) {
+                log.error("Failed to delete rendition {} of cover {}", size, coverFile, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void generateRenditions(String coverFile) {
+        try {
+            BufferedImage source;
+            try (InputStream in = coverStorage.get(coverFile)) {
+                source = decode(in, coverFile);
+            }
+            if (source == null) {
+                failed.add(coverFile);
+                return;
+            }
+            for (Size size : Size.values()) {
+                String rendition = renditionName(coverFile, size);
+                if (!coverStorage.exists(rendition)) {
+                    writeJpeg(scale(source, size.maxWidth), rendition);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            log.debug("Cover {} was deleted before its renditions were generated", coverFile);
+        } catch (IIOException | RuntimeException e) {
+            failed.add(coverFile);
+            log.warn("Failed to decode cover {}, serving the original for all sizes", coverFile, e);
+        } catch (IOException e) {
+            log.warn("Failed to generate renditions for cover {}", coverFile, e);
+        }
+    }
+
+    /**
+     * Decodes the cover, subsampled to at most twice the largest rendition width. Returns null when no reader
+     * supports the format or the declared size exceeds {@link #MAX_SOURCE_PIXELS}.
+     */
+    private BufferedImage decode(InputStream in, String coverFile) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                log.debug("No image reader for cover {}, serving the original for all sizes", coverFile);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    log.warn("Cover {} declares {}x{} pixels, serving the original for all sizes", coverFile, width,
+                            height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / (Size.FULL.maxWidth * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int maxWidth) {
+        int width = Math.min(maxWidth, source.getWidth());
+        int height = Math.max(1, (int) Math.round(source.getHeight() * (width / (double) source.getWidth())));
+
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, currentWidth, currentHeight);
+            graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            graphics.dispose();
+            current = step;
+        } while (currentWidth > width || currentHeight > height);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, String rendition) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam params = writer.getDefaultWriteParam();
+        params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        params.setCompressionQuality(JPEG_QUALITY);
+        params.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+        Files.createDirectories(coverPathResolver.getRoot());
+        Path temp = coverPathResolver.getRoot().resolve(".rendition-" + UUID.randomUUID() + ".tmp");
+        try {
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), params);
+            } finally {
+                writer.dispose();
+            }
+            coverStorage.put(rendition, temp, "image/jpeg");
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Name of the cover a rendition was generated from, without its extension, or null for names that are no rendition.
+     */
+    public static String renditionBase(String fileName) {
+        Matcher matcher = RENDITION_NAME.matcher(fileName);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    public static String renditionName(String coverFile, Size size) {
+        int dot = coverFile.lastIndexOf('.');
+        String base = dot > 0 ? coverFile.substring(0, dot) : coverFile;
+        return base + "_" + size.name().toLowerCase() + ".jpg";
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Backend holding cover images and their renditions, selected with {@code app.storage.type}.
+ */
+public interface CoverStorage {
+
+    record StoredObject(String name, long length, long lastModified, Path localPath) {
+    }
+
+    Optional<StoredObject> stat(String name) throws IOException;
+
+    default boolean exists(String name) throws IOException {
+        return stat(name).isPresent();
+    }
+
+    /**
+     * Opens the object for reading.
+     *
+     * @throws java.nio.file.NoSuchFileException if the object does not exist
+     */
+    InputStream get(String name) throws IOException;
+
+    /**
+     * Stores the content of a local file under the given name. The source file may be moved by the
+     * implementation, callers must not rely on it still existing afterwards.
+     */
+    void put(String name, Path source, String contentType) throws IOException;
+
+    void delete(String name) throws IOException;
+
+    /**
+     * Streams every stored object to the consumer without materializing the listing.
+     */
+    void list(Consumer<StoredObject> consumer) throws IOException;
+
+    /**
+     * URL the client can fetch the object from without going through this application,
+     * or empty when the object is served by the application itself.
+     */
+    Optional<URI> presignedUrl(String name, Duration ttl, String cacheControl);
+}
@@ -0,0 +1,256 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoverStorageService {
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+    private static final int SNIFF_LENGTH = 12;
+
+    private final ReviewRepository reviewRepository;
+    private final CoverPathResolver coverPathResolver;
+    private final CoverStorage coverStorage;
+    private final CoverRenditionService coverRenditionService;
+    private final CoverDeliveryService coverDeliveryService;
+
+    @Value("${app.uploads.cover-max-size:8MB}")
+    private DataSize coverMaxSize;
+
+    @Value("${app.uploads.gc-grace-period:PT1H}")
+    private Duration deleteGracePeriod;
+
+    public String store(MultipartFile file) throws IOException {
+        checkSize(file.getSize());
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename());
+        }
+    }
+
+    /**
+     * Stores the cover under its content hash. Inside a transaction the file stays in the spool directory
+     * until the transaction is about to commit and is discarded on rollback, outside of one it is stored immediately.
+     */
+    public String store(InputStream in, String originalFileName) throws IOException {
+        Path temp = newTempFile();
+        boolean staged = false;
+        try {
+            String hash;
+            try (ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                hash = copyAndHash(source, target);
+            }
+            String fileName = hash + sniffExtension(temp);
+
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new StagedCover(temp, fileName));
+                staged = true;
+            } else {
+                moveIntoPlace(temp, fileName);
+            }
+            return fileName;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(originalFileName + ": " + e.getMessage(), e);
+        } finally {
+            if (!staged) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    public void checkSize(long size) {
+        if (size > coverMaxSize.toBytes()) {
+            throw new IllegalArgumentException("Cover file exceeds the maximum size of " + coverMaxSize);
+        }
+    }
+
+    /**
+     * Deletes the cover once nothing references it anymore. Inside a transaction the check runs after commit,
+     * so a rollback never removes the cover of a row that still exists.
+     */
+    public void release(String fileName) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteIfUnreferenced(fileName);
+                }
+            });
+            return;
+        }
+        deleteIfUnreferenced(fileName);
+    }
+
+    /**
+     * Whether the object was stored within the grace period, going by its timestamp in the storage. Such covers
+     * may be referenced by a transaction that has not committed yet, on any node, and are left to the garbage
+     * collector.
+     */
+    public boolean isWithinGracePeriod(CoverStorage.StoredObject object) {
+        return object.lastModified() > System.currentTimeMillis() - deleteGracePeriod.toMillis();
+    }
+
+    public boolean deleteIfUnreferenced(String fileName) {
+        Optional<CoverStorage.StoredObject> stored;
+        try {
+            stored = coverStorage.stat(fileName);
+        } catch (IOException e) {
+            log.error("Failed to read file: {}", fileName, e);
+            return false;
+        }
+        if (stored.isPresent() && isWithinGracePeriod(stored.get())) {
+            log.debug("Keeping cover {} - stored again within the grace period", fileName);
+            return false;
+        }
+        long references = reviewRepository.countByCoverFile(fileName);
+        if (references > 0) {
+            log.debug("Keeping cover {} - still used by {} reviews", fileName, references);
+            return false;
+        }
+        try {
+            coverStorage.delete(fileName);
+        } catch (IOException e) {
+            log.error("Failed to delete file: {}", fileName, e);
+            return false;
+        }
+        coverRenditionService.deleteRenditions(fileName);
+        coverDeliveryService.evict(fileName);
+        return true;
+    }
+
+    private Path newTempFile() throws IOException {
+        Path uploadsDir = coverPathResolver.getRoot();
+        Files.createDirectories(uploadsDir);
+        return uploadsDir.resolve(".upload-" + UUID.randomUUID() + ".tmp");
+    }
+
+    private String copyAndHash(ReadableByteChannel source, FileChannel target) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(TRANSFER_BUFFER_SIZE);
+        long written = 0;
+        while (source.read(buffer) >= 0 || buffer.position() > 0) {
+            buffer.flip();
+            ByteBuffer chunk = buffer.duplicate();
+            int bytesWritten = target.write(buffer);
+            chunk.limit(chunk.position() + bytesWritten);
+            digest.update(chunk);
+            written += bytesWritten;
+            checkSize(written);
+            buffer.compact();
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Stores the cover unless the same content was stored recently. An older copy is written again, so that its
+     * timestamp protects it from the garbage collector until the transaction referencing it has committed.
+     */
+    private void moveIntoPlace(Path temp, String fileName) throws IOException {
+        Optional<CoverStorage.StoredObject> stored = coverStorage.stat(fileName);
+        if (stored.isPresent() && stored.get().lastModified()
+                > System.currentTimeMillis() - deleteGracePeriod.toMillis() / 2) {
+            log.debug("Cover {} already stored, reusing it", fileName);
+            return;
+        }
+        coverStorage.put(fileName, temp, MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+    }
+
+    private String sniffExtension(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SNIFF_LENGTH);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        byte[] bytes = header.array();
+        int length = header.position();
+
+        if (length >= 3 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xD8 && (bytes[2] & 0xFF) == 0xFF) {
+            return ".jpg";
+        }
+        if (length >= 8 && (bytes[0] & 0xFF) == 0x89 && bytes[1] == 'P' && bytes[2] == 'N' && bytes[3] == 'G'
+                && bytes[4] == 0x0D && bytes[5] == 0x0A && bytes[6] == 0x1A && bytes[7] == 0x0A) {
+            return ".png";
+        }
+        if (length >= 6 && bytes[0] == 'G' && bytes[1] == 'I' && bytes[2] == 'F' && bytes[3] == '8'
+                && (bytes[4] == '7' || bytes[4] == '9') && bytes[5] == 'a') {
+            return ".gif";
+        }
+        if (length >= 12 && bytes[0] == 'R' && bytes[1] == 'I' && bytes[2] == 'F' && bytes[3] == 'F'
+                && bytes[8] == 'W' && bytes[9] == 'E' && bytes[10] == 'B' && bytes[11] == 'P') {
+            return ".webp";
+        }
+        throw new IllegalArgumentException("Unsupported cover image format, expected JPEG, PNG, GIF or WebP");
+    }
+
+    private class StagedCover implements TransactionSynchronization {
+        private final Path temp;
+        private final String fileName;
+
+        StagedCover(Path temp, String fileName) {
+            this.temp = temp;
+            this.fileName = fileName;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Promote before the commit so that a committed row never points at a missing file.
+            // Should the commit itself fail the stored file becomes an orphan for the garbage collector.
+            try {
+                moveIntoPlace(temp, fileName);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to store cover " + fileName, e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.warn("Failed to delete staged cover {}", temp, e);
+            }
+        }
+    }
+}
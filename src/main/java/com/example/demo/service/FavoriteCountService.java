@@ -0,0 +1,203 @@
+package com.example.demo.service;
+
+import com.example.demo.event.FavoriteToggledEvent;
+import com.example.demo.event.ReviewChangedEvent;
+import com.example.demo.repository.ReviewJdbcRepository;
+import com.example.demo.repository.UserFavoriteReviewRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Favorite counts per review, served from memory. The counters are loaded with one grouped query at startup and
+ * follow committed favorite toggles. Changed reviews are written behind to {@code reviews.favoriteCount}, which is
+ * recomputed from the favorites table rather than incremented, so that nodes never count each other's changes
+ * twice and the column stays readable for other nodes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FavoriteCountService {
+    private final UserFavoriteReviewRepository userFavoriteReviewRepository;
+    private final ReviewJdbcRepository reviewJdbcRepository;
+
+    private volatile Map<Integer, LongAdder> counts = new ConcurrentHashMap<>();
+    // Reviews whose stored count is recomputed by the next flush
+    private final Set<Integer> changedReviews = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    // Guards counter changes against the swap of the counts map
+    private final Object changeLock = new Object();
+    // Reviews changed while a refresh reads the column, they keep their counter instead of the value read
+    private Set<Integer> changedDuringRefresh;
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<Integer, LongAdder> initial = new ConcurrentHashMap<>();
+        for (Object[] row : userFavoriteReviewRepository.countFavoritesByReview()) {
+            LongAdder count = new LongAdder();
+            count.add((Long) row[1]);
+            initial.put((Integer) row[0], count);
+        }
+        synchronized (changeLock) {
+            counts = initial;
+            loaded = true;
+        }
+        log.info("Loaded favorite counts for {} reviews", initial.size());
+    }
+
+    public long getCount(Integer reviewId) {
+        if (!loaded) {
+            return userFavoriteReviewRepository.countByReviewId(reviewId);
+        }
+        LongAdder count = counts.get(reviewId);
+        return count != null ? count.sum() : 0;
+    }
+
+    public Map<Integer, Long> getCounts(Iterable<Integer> reviewIds) {
+        Map<Integer, Long> result = new HashMap<>();
+        for (Integer reviewId : reviewIds) {
+            result.put(reviewId, getCount(reviewId));
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFavoriteToggled(FavoriteToggledEvent event) {
+        long delta = event.favorited() ? 1 : -1;
+        synchronized (changeLock) {
+            counts.computeIfAbsent(event.reviewId(), id -> new LongAdder()).add(delta);
+            if (changedDuringRefresh != null) {
+                changedDuringRefresh.add(event.reviewId());
+            }
+        }
+        changedReviews.add(event.reviewId());
+    }
+
+    @TransactionalEventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (event.type() == ReviewChangedEvent.Type.DELETED) {
+            Integer reviewId = event.review().getReviewID();
+            synchronized (changeLock) {
+                counts.remove(reviewId);
+                if (changedDuringRefresh != null) {
+                    changedDuringRefresh.add(reviewId);
+                }
+            }
+            changedReviews.remove(reviewId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.favorites.count-flush-interval:PT30S}")
+    public void flush() {
+        synchronized (flushLock) {
+            flushChanged();
+        }
+    }
+
+    /**
+     * Picks up the changes other nodes have written to the column. Local changes are flushed first so the column
+     * contains them. Reviews toggled while the flush and read run keep their in-memory counter, since the value
+     * read may or may not contain those toggles, and take the stored count with the next refresh.
+     */
+    @Scheduled(initialDelayString = "${app.favorites.count-refresh-interval:PT5M}",
+            fixedDelayString = "${app.favorites.count-refresh-interval:PT5M}")
+    public void refresh() {
+        if (!loaded) {
+            return;
+        }
+        synchronized (flushLock) {
+            synchronized (changeLock) {
+                changedDuringRefresh = new HashSet<>();
+            }
+            Map<Integer, LongAdder> refreshed = new ConcurrentHashMap<>();
+            try {
+                flushChanged();
+                reviewJdbcRepository.readFavoriteCounts((reviewId, count) -> {
+                    LongAdder adder = new LongAdder();
+                    adder.add(count);
+                    refreshed.put(reviewId, adder);
+                });
+            } catch (DataAccessException e) {
+                synchronized (changeLock) {
+                    changedDuringRefresh = null;
+                }
+                log.warn("Failed to refresh favorite counts", e);
+                return;
+            }
+            synchronized (changeLock) {
+                // Reviews left over from a failed flush are not in the column yet either
+                changedDuringRefresh.addAll(changedReviews);
+                for (Integer reviewId : changedDuringRefresh) {
+                    LongAdder current = counts.get(reviewId);
+                    if (current != null) {
+                        refreshed.put(reviewId, current);
+                    } else {
+                        refreshed.remove(reviewId);
+                    }
+                }
+                counts = refreshed;
+                changedDuringRefresh = null;
+            }
+        }
+    }
+
+    /**
+     * Brings the whole column in line with the favorites table, e.g. after a node stopped before flushing.
+     * Flushes recompute rather than add, so this is safe while other nodes hold unflushed changes.
+     */
+    @Scheduled(initialDelayString = "${app.favorites.count-reconcile-interval:PT6H}",
+            fixedDelayString = "${app.favorites.count-reconcile-interval:PT6H}")
+    public void reconcile() {
+        try {
+            int corrected = reviewJdbcRepository.recomputeFavoriteCounts();
+            log.info("Reconciled stored favorite counts, corrected {} reviews", corrected);
+        } catch (DataAccessException e) {
+            log.warn("Failed to reconcile stored favorite counts", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Recomputes the stored counts of the changed reviews, called with the flush lock held. Reviews toggled back
+     * and forth are recomputed as well, another node may have changed them too.
+     */
+    private void flushChanged() {
+        List<Integer> reviewIds = new ArrayList<>();
+        for (Integer reviewId : new ArrayList<>(changedReviews)) {
+            if (changedReviews.remove(reviewId)) {
+                reviewIds.add(reviewId);
+            }
+        }
+        if (reviewIds.isEmpty()) {
+            return;
+        }
+        try {
+            reviewJdbcRepository.recomputeFavoriteCounts(reviewIds);
+            log.debug("Persisted favorite count changes for {} reviews", reviewIds.size());
+        } catch (DataAccessException e) {
+            // Keep the reviews for the next attempt
+            changedReviews.addAll(reviewIds);
+            log.warn("Failed to persist favorite counts, retrying later", e);
+        }
+    }
+}
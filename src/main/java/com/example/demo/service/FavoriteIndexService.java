@@ -0,0 +1,361 @@
+package com.example.demo.service;
+
+import com.example.demo.event.FavoriteToggledEvent;
+import com.example.demo.event.ReviewChangedEvent;
+import com.example.demo.repository.UserFavoriteJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * All favorites held in memory as compressed bitmaps, the reviews of every user and the users of every review.
+ * A favorite takes 16 bits in each direction, less where the ids are dense. The bitmaps are immutable,
+ * lookups read them without locking while committed favorite changes replace them.
+ * <p>
+ * Local changes arrive as events. Favorites added on other nodes are picked up by polling for favorite ids above
+ * the highest one seen and reloading those users. Removals on other nodes and ids that committed out of order
+ * are caught up by a periodic full reload, so the index only serves reads that tolerate that delay, such as
+ * recommendations. Favorite flags shown to users are read from the database.
+ */
+@Slf4j
+@Service
+public class FavoriteIndexService {
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final UserFavoriteJdbcRepository userFavoriteJdbcRepository;
+    private final int threads;
+
+    private volatile Map<Integer, IntBitmap> reviewsByUser = new ConcurrentHashMap<>();
+    private volatile Map<Integer, IntBitmap> usersByReview = new ConcurrentHashMap<>();
+    private final Object changeLock = new Object();
+    // Keeps loads and polls from overlapping, both record the changes committed while they read
+    private final Object refreshLock = new Object();
+    // Changes committed while the index is loading, replayed on top of the loaded snapshot
+    private List<Runnable> changesDuringLoad;
+    // Highest favorite id the index has read from the database
+    private volatile int watermark;
+    private volatile boolean loaded;
+
+    public record IndexStats(int users, int reviews, long favorites, long bytes, double bitsPerFavorite) {
+    }
+
+    private record Chunk(Map<Integer, IntBitmap> reviewsByUser, Map<Integer, IntBitmap> usersByReview) {
+    }
+
+    public FavoriteIndexService(UserFavoriteJdbcRepository userFavoriteJdbcRepository) {
+        this.userFavoriteJdbcRepository = userFavoriteJdbcRepository;
+        this.threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (refreshLock) {
+            reload();
+        }
+    }
+
+    /**
+     * Reloads the whole index, catching up on favorites other nodes removed. Retries a failed initial load as well.
+     */
+    @Scheduled(initialDelayString = "${app.favorites.index-reload-interval:PT1H}",
+            fixedDelayString = "${app.favorites.index-reload-interval:PT1H}")
+    public void reloadScheduled() {
+        load();
+    }
+
+    /**
+     * Reloads the users that favorited reviews since the last load or poll, e.g. on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${app.favorites.index-poll-interval:PT15S}")
+    public void pollAdded() {
+        if (!loaded) {
+            return;
+        }
+        synchronized (refreshLock) {
+            startRecording();
+            try {
+                UserFavoriteJdbcRepository.AddedSince added = userFavoriteJdbcRepository.findUsersWithFavoritesAfter(watermark);
+                Map<Integer, IntBitmap.Builder> builders = new HashMap<>();
+                added.userIds().forEach(userId -> builders.put(userId, new IntBitmap.Builder()));
+                userFavoriteJdbcRepository.readFavorites(added.userIds(),
+                        (userId, reviewId) -> builders.get(userId).add(reviewId));
+
+                synchronized (changeLock) {
+                    builders.forEach((userId, builder) -> setFavorites(userId, builder.build()));
+                    replayRecorded();
+                    watermark = added.maxFavoriteId();
+                }
+                if (!added.userIds().isEmpty()) {
+                    log.debug("Reloaded the favorites of {} users up to favorite {}", added.userIds().size(),
+                            added.maxFavoriteId());
+                }
+            } catch (RuntimeException e) {
+                stopRecording();
+                log.warn("Failed to poll for new favorites, retrying later", e);
+            }
+        }
+    }
+
+    private void reload() {
+        startRecording();
+        long started = System.currentTimeMillis();
+        try {
+            // Read first, favorites added while the chunks are read are picked up again by the next poll
+            int loadedWatermark = userFavoriteJdbcRepository.findMaxFavoriteId();
+            List<Chunk> chunks = loadChunks();
+            Map<Integer, IntBitmap> users = new ConcurrentHashMap<>();
+            for (Chunk chunk : chunks) {
+                users.putAll(chunk.reviewsByUser());
+            }
+            Map<Integer, IntBitmap> reviews = new ConcurrentHashMap<>(mergeReviews(chunks));
+
+            synchronized (changeLock) {
+                reviewsByUser = users;
+                usersByReview = reviews;
+                replayRecorded();
+                watermark = loadedWatermark;
+                loaded = true;
+            }
+            IndexStats stats = getStats();
+            log.info("Loaded favorite index in {} ms: {} favorites of {} users, {} bytes ({} bits per favorite)",
+                    System.currentTimeMillis() - started, stats.favorites(), stats.users(), stats.bytes(),
+                    String.format("%.1f", stats.bitsPerFavorite()));
+        } catch (RuntimeException e) {
+            stopRecording();
+            log.error(loaded ? "Failed to reload the favorite index, keeping the current one"
+                    : "Failed to load the favorite index, favorites are read from the database", e);
+        }
+    }
+
+    private void startRecording() {
+        synchronized (changeLock) {
+            changesDuringLoad = new ArrayList<>();
+        }
+    }
+
+    private void replayRecorded() {
+        changesDuringLoad.forEach(Runnable::run);
+        changesDuringLoad = null;
+    }
+
+    private void stopRecording() {
+        synchronized (changeLock) {
+            changesDuringLoad = null;
+        }
+    }
+
+    /**
+     * Replaces the favorites of a user with the state read from the database and updates the reverse direction.
+     */
+    private void setFavorites(Integer userId, IntBitmap favorites) {
+        IntBitmap previous = reviewsByUser.getOrDefault(userId, IntBitmap.EMPTY);
+        if (favorites.isEmpty()) {
+            reviewsByUser.remove(userId);
+        } else {
+            reviewsByUser.put(userId, favorites);
+        }
+        previous.forEach(reviewId -> {
+            if (!favorites.contains(reviewId)) {
+                usersByReview.computeIfPresent(reviewId, (id, bitmap) -> without(bitmap, userId));
+            }
+        });
+        favorites.forEach(reviewId -> {
+            if (!previous.contains(reviewId)) {
+                usersByReview.compute(reviewId, (id, bitmap) -> with(bitmap, userId));
+            }
+        });
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public IntBitmap getFavorites(Integer userId) {
+        return reviewsByUser.getOrDefault(userId, IntBitmap.EMPTY);
+    }
+
+    public IntBitmap getFavoritedBy(Integer reviewId) {
+        return usersByReview.getOrDefault(reviewId, IntBitmap.EMPTY);
+    }
+
+    public int countFavorites(Integer userId) {
+        return getFavorites(userId).cardinality();
+    }
+
+    public int countFavoritedBy(Integer reviewId) {
+        return getFavoritedBy(reviewId).cardinality();
+    }
+
+    /**
+     * Read-only views of the current bitmaps. Other threads may replace entries while the views are read,
+     * every bitmap read is a consistent snapshot of its own.
+     */
+    public Map<Integer, IntBitmap> getFavoritesByUser() {
+        return Collections.unmodifiableMap(reviewsByUser);
+    }
+
+    public Map<Integer, IntBitmap> getFavoritedByReview() {
+        return Collections.unmodifiableMap(usersByReview);
+    }
+
+    public IndexStats getStats() {
+        Map<Integer, IntBitmap> users = reviewsByUser;
+        Map<Integer, IntBitmap> reviews = usersByReview;
+        long favorites = 0;
+        long bytes = 0;
+        for (IntBitmap bitmap : users.values()) {
+            favorites += bitmap.cardinality();
+            bytes += bitmap.sizeInBytes();
+        }
+        for (IntBitmap bitmap : reviews.values()) {
+            bytes += bitmap.sizeInBytes();
+        }
+        return new IndexStats(users.size(), reviews.size(), favorites, bytes,
+                favorites == 0 ? 0 : bytes * 8.0 / favorites);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFavoriteToggled(FavoriteToggledEvent event) {
+        apply(() -> {
+            if (event.favorited()) {
+                reviewsByUser.compute(event.userId(), (id, bitmap) -> with(bitmap, event.reviewId()));
+                usersByReview.compute(event.reviewId(), (id, bitmap) -> with(bitmap, event.userId()));
+            } else {
+                reviewsByUser.computeIfPresent(event.userId(), (id, bitmap) -> without(bitmap, event.reviewId()));
+                usersByReview.computeIfPresent(event.reviewId(), (id, bitmap) -> without(bitmap, event.userId()));
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (event.type() != ReviewChangedEvent.Type.DELETED) {
+            return;
+        }
+        Integer reviewId = event.review().getReviewID();
+        apply(() -> {
+            IntBitmap users = usersByReview.remove(reviewId);
+            if (users != null) {
+                users.forEach(userId -> reviewsByUser.computeIfPresent(userId, (id, bitmap) -> without(bitmap, reviewId)));
+            }
+        });
+    }
+
+    private void apply(Runnable change) {
+        synchronized (changeLock) {
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(change);
+            }
+            change.run();
+        }
+    }
+
+    private static IntBitmap with(IntBitmap bitmap, int value) {
+        return (bitmap == null ? IntBitmap.EMPTY : bitmap).with(value);
+    }
+
+    private static IntBitmap without(IntBitmap bitmap, int value) {
+        IntBitmap result = bitmap.without(value);
+        return result.isEmpty() ? null : result;
+    }
+
+    /**
+     * Splits the user id range into chunks read in parallel. Every chunk reads its rows ordered by user and review,
+     * so all bitmaps are built by appending ascending values.
+     */
+    private List<Chunk> loadChunks() {
+        UserFavoriteJdbcRepository.IdRange range = userFavoriteJdbcRepository.findUserIdRange();
+        if (range == null) {
+            return List.of();
+        }
+        long span = (long) range.max() - range.min() + 1;
+        int chunkCount = (int) Math.min(span, (long) threads * CHUNKS_PER_THREAD);
+        long chunkSize = (span + chunkCount - 1) / chunkCount;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Chunk>> futures = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                int from = (int) (range.min() + i * chunkSize);
+                int to = (int) Math.min((long) range.max() + 1, range.min() + (i + 1) * chunkSize);
+                futures.add(executor.submit(() -> loadChunk(from, to)));
+            }
+            List<Chunk> chunks = new ArrayList<>(chunkCount);
+            for (Future<Chunk> future : futures) {
+                chunks.add(future.get());
+            }
+            return chunks;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the favorite index", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to load the favorite index", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Chunk loadChunk(int fromUserId, int toUserId) {
+        Map<Integer, IntBitmap> users = new HashMap<>();
+        Map<Integer, IntBitmap.Builder> reviews = new HashMap<>();
+        IntBitmap.Builder[] current = {null};
+        int[] currentUser = {-1};
+
+        userFavoriteJdbcRepository.readFavorites(fromUserId, toUserId, (userId, reviewId) -> {
+            if (userId != currentUser[0]) {
+                if (current[0] != null) {
+                    users.put(currentUser[0], current[0].build());
+                }
+                current[0] = new IntBitmap.Builder();
+                currentUser[0] = userId;
+            }
+            current[0].add(reviewId);
+            reviews.computeIfAbsent(reviewId, id -> new IntBitmap.Builder()).add(userId);
+        });
+        if (current[0] != null) {
+            users.put(currentUser[0], current[0].build());
+        }
+
+        Map<Integer, IntBitmap> builtReviews = new HashMap<>(reviews.size() * 2);
+        reviews.forEach((reviewId, builder) -> builtReviews.put(reviewId, builder.build()));
+        return new Chunk(users, builtReviews);
+    }
+
+    /**
+     * Chunks cover ascending user ranges, concatenating their parts in chunk order keeps the user ids ascending.
+     */
+    private Map<Integer, IntBitmap> mergeReviews(List<Chunk> chunks) {
+        Map<Integer, IntBitmap> merged = new HashMap<>();
+        Map<Integer, IntBitmap.Builder> builders = new HashMap<>();
+        for (Chunk chunk : chunks) {
+            chunk.usersByReview().forEach((reviewId, part) -> {
+                IntBitmap first = merged.putIfAbsent(reviewId, part);
+                if (first == null) {
+                    return;
+                }
+                IntBitmap.Builder builder = builders.computeIfAbsent(reviewId, id -> {
+                    IntBitmap.Builder b = new IntBitmap.Builder();
+                    first.forEach(b::add);
+                    return b;
+                });
+                part.forEach(builder::add);
+            });
+        }
+        builders.forEach((reviewId, builder) -> merged.put(reviewId, builder.build()));
+        return merged;
+    }
+}
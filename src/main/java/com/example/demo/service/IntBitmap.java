@@ -0,0 +1,373 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable compressed set of non-negative ints, organised like a Roaring bitmap: values are grouped by their
+ * upper 16 bits, each group holds the lower 16 bits either as a sorted {@code char[]} (up to 4096 values,
+ * 16 bits per value) or as a 65536 bit {@code long[]} once denser. Changes return a new bitmap that shares
+ * the untouched groups, so readers never need a lock.
+ */
+public final class IntBitmap {
+    public static final IntBitmap EMPTY = new IntBitmap(new char[0], new Object[0], 0);
+
+    private static final int MAX_ARRAY_SIZE = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private final char[] keys;
+    // Either char[] (array container) or long[] (bitmap container)
+    private final Object[] containers;
+    private final int cardinality;
+
+    private IntBitmap(char[] keys, Object[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(int value) {
+        int index = Arrays.binarySearch(keys, high(value));
+        return index >= 0 && containerContains(containers[index], low(value));
+    }
+
+    public IntBitmap with(int value) {
+        checkValue(value);
+        char high = high(value);
+        char low = low(value);
+        int index = Arrays.binarySearch(keys, high);
+        if (index >= 0) {
+            Object container = containers[index];
+            if (containerContains(container, low)) {
+                return this;
+            }
+            Object[] newContainers = containers.clone();
+            newContainers[index] = containerWith(container, low);
+            return new IntBitmap(keys, newContainers, cardinality + 1);
+        }
+
+        int insertAt = -index - 1;
+        char[] newKeys = new char[keys.length + 1];
+        Object[] newContainers = new Object[containers.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insertAt);
+        System.arraycopy(containers, 0, newContainers, 0, insertAt);
+        newKeys[insertAt] = high;
+        newContainers[insertAt] = new char[]{low};
+        System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+        System.arraycopy(containers, insertAt, newContainers, insertAt + 1, containers.length - insertAt);
+        return new IntBitmap(newKeys, newContainers, cardinality + 1);
+    }
+
+    public IntBitmap without(int value) {
+        int index = Arrays.binarySearch(keys, high(value));
+        if (index < 0 || !containerContains(containers[index], low(value))) {
+            return this;
+        }
+        if (cardinality == 1) {
+            return EMPTY;
+        }
+        Object container = containerWithout(containers[index], low(value));
+        if (container != null) {
+            Object[] newContainers = containers.clone();
+            newContainers[index] = container;
+            return new IntBitmap(keys, newContainers, cardinality - 1);
+        }
+
+        char[] newKeys = new char[keys.length - 1];
+        Object[] newContainers = new Object[containers.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(containers, 0, newContainers, 0, index);
+        System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+        System.arraycopy(containers, index + 1, newContainers, index, containers.length - index - 1);
+        return new IntBitmap(newKeys, newContainers, cardinality - 1);
+    }
+
+    public IntBitmap and(IntBitmap other) {
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                int base = keys[i] << 16;
+                forEachCommon(containers[i], other.containers[j], low -> builder.add(base | low));
+                i++;
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    public int andCardinality(IntBitmap other) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                count += commonCardinality(containers[i], other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Visits the values in ascending order.
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            int base = keys[i] << 16;
+            if (containers[i] instanceof char[] values) {
+                for (char low : values) {
+                    consumer.accept(base | low);
+                }
+            } else {
+                long[] words = (long[]) containers[i];
+                for (int w = 0; w < words.length; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        consumer.accept(base | (w << 6) + Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] values = new int[cardinality];
+        int[] position = {0};
+        forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    /**
+     * Approximate heap size of the bitmap content, without object headers.
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 2L + containers.length * 4L;
+        for (Object container : containers) {
+            bytes += container instanceof char[] values ? values.length * 2L : BITMAP_WORDS * 8L;
+        }
+        return bytes;
+    }
+
+    private static char high(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char low(int value) {
+        return (char) value;
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Only non-negative values can be stored: " + value);
+        }
+    }
+
+    private static boolean containerContains(Object container, char low) {
+        if (container instanceof char[] values) {
+            return Arrays.binarySearch(values, low) >= 0;
+        }
+        return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+    }
+
+    private static Object containerWith(Object container, char low) {
+        if (container instanceof char[] values) {
+            if (values.length < MAX_ARRAY_SIZE) {
+                int insertAt = -Arrays.binarySearch(values, low) - 1;
+                char[] newValues = new char[values.length + 1];
+                System.arraycopy(values, 0, newValues, 0, insertAt);
+                newValues[insertAt] = low;
+                System.arraycopy(values, insertAt, newValues, insertAt + 1, values.length - insertAt);
+                return newValues;
+            }
+            long[] words = toWords(values);
+            words[low >>> 6] |= 1L << low;
+            return words;
+        }
+        long[] words = ((long[]) container).clone();
+        words[low >>> 6] |= 1L << low;
+        return words;
+    }
+
+    /**
+     * Returns the container without the value, or null when it becomes empty.
+     */
+    private static Object containerWithout(Object container, char low) {
+        if (container instanceof char[] values) {
+            if (values.length == 1) {
+                return null;
+            }
+            int index = Arrays.binarySearch(values, low);
+            char[] newValues = new char[values.length - 1];
+            System.arraycopy(values, 0, newValues, 0, index);
+            System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+            return newValues;
+        }
+        long[] words = ((long[]) container).clone();
+        words[low >>> 6] &= ~(1L << low);
+        int remaining = bitCount(words);
+        // Back to the array form once it is the smaller one again
+        return remaining <= MAX_ARRAY_SIZE ? toValues(words, remaining) : words;
+    }
+
+    private static void forEachCommon(Object a, Object b, IntConsumer consumer) {
+        if (a instanceof char[] left && b instanceof char[] right) {
+            int i = 0;
+            int j = 0;
+            while (i < left.length && j < right.length) {
+                if (left[i] < right[j]) {
+                    i++;
+                } else if (left[i] > right[j]) {
+                    j++;
+                } else {
+                    consumer.accept(left[i]);
+                    i++;
+                    j++;
+                }
+            }
+        } else if (a instanceof char[] values) {
+            for (char low : values) {
+                if (containerContains(b, low)) {
+                    consumer.accept(low);
+                }
+            }
+        } else if (b instanceof char[]) {
+            forEachCommon(b, a, consumer);
+        } else {
+            long[] left = (long[]) a;
+            long[] right = (long[]) b;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = left[w] & right[w];
+                while (word != 0) {
+                    consumer.accept((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    private static int commonCardinality(Object a, Object b) {
+        if (a instanceof long[] left && b instanceof long[] right) {
+            int count = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                count += Long.bitCount(left[w] & right[w]);
+            }
+            return count;
+        }
+        int[] count = {0};
+        forEachCommon(a, b, low -> count[0]++);
+        return count[0];
+    }
+
+    private static long[] toWords(char[] values) {
+        long[] words = new long[BITMAP_WORDS];
+        for (char low : values) {
+            words[low >>> 6] |= 1L << low;
+        }
+        return words;
+    }
+
+    private static char[] toValues(long[] words, int cardinality) {
+        char[] values = new char[cardinality];
+        int position = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[position++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+
+    private static int bitCount(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Builds a bitmap from values added in strictly ascending order, without the copying of {@link #with(int)}.
+     */
+    public static final class Builder {
+        private char[] keys = new char[4];
+        private Object[] containers = new Object[4];
+        private int size;
+        private int cardinality;
+
+        private char[] currentValues = new char[16];
+        private long[] currentWords;
+        private int currentCount;
+        private int last = -1;
+
+        public Builder add(int value) {
+            checkValue(value);
+            if (value <= last) {
+                throw new IllegalArgumentException("Values must be added in ascending order: " + value + " after " + last);
+            }
+            if (last < 0 || high(value) != high(last)) {
+                flush();
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    containers = Arrays.copyOf(containers, size * 2);
+                }
+                keys[size] = high(value);
+            }
+            char low = low(value);
+            if (currentWords != null) {
+                currentWords[low >>> 6] |= 1L << low;
+            } else if (currentCount == MAX_ARRAY_SIZE) {
+                currentWords = toWords(Arrays.copyOf(currentValues, currentCount));
+                currentWords[low >>> 6] |= 1L << low;
+            } else {
+                if (currentCount == currentValues.length) {
+                    currentValues = Arrays.copyOf(currentValues, currentCount * 2);
+                }
+                currentValues[currentCount] = low;
+            }
+            currentCount++;
+            last = value;
+            return this;
+        }
+
+        public IntBitmap build() {
+            flush();
+            if (cardinality == 0) {
+                return EMPTY;
+            }
+            return new IntBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size), cardinality);
+        }
+
+        private void flush() {
+            if (currentCount == 0) {
+                return;
+            }
+            containers[size++] = currentWords != null ? currentWords : Arrays.copyOf(currentValues, currentCount);
+            cardinality += currentCount;
+            currentValues = new char[16];
+            currentWords = null;
+            currentCount = 0;
+        }
+    }
+}
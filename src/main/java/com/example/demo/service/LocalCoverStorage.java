@@ -0,0 +1,83 @@
+package com.example.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalCoverStorage implements CoverStorage {
+    private final CoverPathResolver coverPathResolver;
+
+    @Override
+    public Optional<StoredObject> stat(String name) throws IOException {
+        Optional<StoredObject> sharded = stat(name, coverPathResolver.shardedPath(name));
+        return sharded.isPresent() ? sharded : stat(name, coverPathResolver.legacyPath(name));
+    }
+
+    @Override
+    public InputStream get(String name) throws IOException {
+        Path path = coverPathResolver.resolveExisting(name)
+                .orElseThrow(() -> new NoSuchFileException(name));
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void put(String name, Path source, String contentType) throws IOException {
+        Files.move(source, coverPathResolver.prepareTarget(name), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        coverPathResolver.delete(name);
+    }
+
+    @Override
+    public void list(Consumer<StoredObject> consumer) throws IOException {
+        if (!Files.isDirectory(coverPathResolver.getRoot())) {
+            return;
+        }
+        // Sharded files sit two directories below the root, legacy files directly in it
+        try (Stream<Path> files = Files.walk(coverPathResolver.getRoot(), 3)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(".") || !coverPathResolver.isValidName(name)) {
+                    continue;
+                }
+                stat(name, file).ifPresent(consumer);
+            }
+        }
+    }
+
+    @Override
+    public Optional<URI> presignedUrl(String name, Duration ttl, String cacheControl) {
+        return Optional.empty();
+    }
+
+    private Optional<StoredObject> stat(String name, Path path) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new StoredObject(name, attributes.size(),
+                    attributes.lastModifiedTime().toMillis(), path));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+}
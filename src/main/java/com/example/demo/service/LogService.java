@@ -21,11 +21,13 @@ public class LogService {
     private final UserLogRepository userLogRepository;
     private final ReviewLogRepository reviewLogRepository;
     private final AdminLogRepository adminLogRepository;
+    private final UserStatsService userStatsService;
 
     public void logUserActivity(Integer userID, String operation) {
         try {
             UserLog userLog = new UserLog(null, userID, operation, ZonedDateTime.now());
             userLogRepository.save(userLog);
+            userStatsService.recordActivity(userID, userLog.getDate());
             log.debug("Logged user activity: User {} performed {}", userID, operation);
         } catch (Exception e) {
             log.error("Failed to log user activity: User {} operation {}", userID, operation, e);
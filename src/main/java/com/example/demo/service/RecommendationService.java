@@ -0,0 +1,232 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Review;
+import com.example.demo.repository.ReviewRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * "Users who favorited this also favorited" recommendations. An item-to-item co-occurrence model is computed
+ * from the favorite index on a fork/join pool, every review keeps its top neighbors ranked by cosine similarity.
+ * The model is rebuilt on a schedule and swapped in as a whole, requests always read a complete model.
+ */
+@Slf4j
+@Service
+public class RecommendationService {
+    private static final int SPLIT_THRESHOLD = 64;
+    private static final int MAX_LIMIT = 50;
+
+    private final FavoriteIndexService favoriteIndexService;
+    private final ReviewRepository reviewRepository;
+    private final ForkJoinPool pool;
+    private final int neighborsPerReview;
+    private final int maxUserFavorites;
+
+    private final AtomicBoolean computing = new AtomicBoolean();
+    private volatile Map<Integer, Neighbors> model = Map.of();
+
+    public record Recommendation(Integer reviewId, String contentType, String contentTitle, String reviewTitle,
+                                 String coverFile, int sharedFavorites, double score) {
+    }
+
+    private record Neighbors(int[] reviewIds, int[] sharedFavorites, float[] scores) {
+    }
+
+    /**
+     * Per worker count array indexed by review id, reused across the reviews of one refresh and dropped with it.
+     */
+    private static class Scratch {
+        final int[] counts;
+        int[] touched = new int[256];
+
+        Scratch(int maxReviewId) {
+            counts = new int[maxReviewId + 1];
+        }
+    }
+
+    public RecommendationService(FavoriteIndexService favoriteIndexService, ReviewRepository reviewRepository,
+                                 @Value("${app.recommendations.neighbors:20}") int neighborsPerReview,
+                                 @Value("${app.recommendations.max-user-favorites:1000}") int maxUserFavorites) {
+        this.favoriteIndexService = favoriteIndexService;
+        this.reviewRepository = reviewRepository;
+        this.neighborsPerReview = neighborsPerReview;
+        this.maxUserFavorites = maxUserFavorites;
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    public List<Recommendation> getRecommendations(Integer reviewId, int limit) {
+        Neighbors neighbors = model.get(reviewId);
+        if (neighbors == null) {
+            return List.of();
+        }
+        int count = Math.min(neighbors.reviewIds().length, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        List<Integer> ids = Arrays.stream(neighbors.reviewIds(), 0, count).boxed().toList();
+        Map<Integer, Review> reviews = reviewRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Review::getReviewID, Function.identity()));
+
+        List<Recommendation> recommendations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Review review = reviews.get(neighbors.reviewIds()[i]);
+            if (review != null) {
+                recommendations.add(new Recommendation(review.getReviewID(), review.getContentType(),
+                        review.getContentTitle(), review.getReviewTitle(), review.getCoverFile(),
+                        neighbors.sharedFavorites()[i], neighbors.scores()[i]));
+            }
+        }
+        return recommendations;
+    }
+
+    @Scheduled(initialDelayString = "${app.recommendations.initial-delay:PT1M}",
+            fixedDelayString = "${app.recommendations.refresh-interval:PT1H}")
+    public void refresh() {
+        if (!favoriteIndexService.isLoaded() || !computing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Map<Integer, IntBitmap> usersByReview = favoriteIndexService.getFavoritedByReview();
+            Map<Integer, IntBitmap> reviewsByUser = favoriteIndexService.getFavoritesByUser();
+            int[] reviewIds = usersByReview.keySet().stream().mapToInt(Integer::intValue).toArray();
+            int maxReviewId = Arrays.stream(reviewIds).max().orElse(0);
+
+            Map<Integer, Neighbors> computed = new ConcurrentHashMap<>(reviewIds.length * 2);
+            pool.invoke(new NeighborTask(reviewIds, 0, reviewIds.length, maxReviewId, usersByReview, reviewsByUser,
+                    computed, new ConcurrentHashMap<>()));
+            model = computed;
+            log.info("Computed recommendations for {} reviews in {} ms", computed.size(),
+                    System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            log.error("Failed to compute recommendations, keeping the previous model", e);
+        } finally {
+            computing.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private class NeighborTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int[] reviewIds;
+        private final int from;
+        private final int to;
+        private final int maxReviewId;
+        private final Map<Integer, IntBitmap> usersByReview;
+        private final Map<Integer, IntBitmap> reviewsByUser;
+        private final Map<Integer, Neighbors> result;
+        private final Map<Thread, Scratch> scratches;
+
+        NeighborTask(int[] reviewIds, int from, int to, int maxReviewId, Map<Integer, IntBitmap> usersByReview,
+                     Map<Integer, IntBitmap> reviewsByUser, Map<Integer, Neighbors> result,
+                     Map<Thread, Scratch> scratches) {
+            this.reviewIds = reviewIds;
+            this.from = from;
+            this.to = to;
+            this.maxReviewId = maxReviewId;
+            this.usersByReview = usersByReview;
+            this.reviewsByUser = reviewsByUser;
+            this.result = result;
+            this.scratches = scratches;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new NeighborTask(reviewIds, from, middle, maxReviewId, usersByReview, reviewsByUser, result,
+                                scratches),
+                        new NeighborTask(reviewIds, middle, to, maxReviewId, usersByReview, reviewsByUser, result,
+                                scratches));
+                return;
+            }
+            Scratch work = scratches.computeIfAbsent(Thread.currentThread(), thread -> new Scratch(maxReviewId));
+            for (int i = from; i < to; i++) {
+                Neighbors neighbors = computeNeighbors(reviewIds[i], work);
+                if (neighbors != null) {
+                    result.put(reviewIds[i], neighbors);
+                }
+            }
+        }
+
+        private Neighbors computeNeighbors(int reviewId, Scratch work) {
+            IntBitmap users = usersByReview.get(reviewId);
+            if (users == null) {
+                return null;
+            }
+            int[] touchedCount = {0};
+            int[] counts = work.counts;
+            users.forEach(userId -> {
+                IntBitmap favorites = reviewsByUser.get(userId);
+                // Users who favorite almost everything add little signal but quadratic cost
+                if (favorites == null || favorites.cardinality() > maxUserFavorites) {
+                    return;
+                }
+                favorites.forEach(other -> {
+                    if (other == reviewId || other >= counts.length) {
+                        return;
+                    }
+                    if (counts[other]++ == 0) {
+                        if (touchedCount[0] == work.touched.length) {
+                            work.touched = Arrays.copyOf(work.touched, touchedCount[0] * 2);
+                        }
+                        work.touched[touchedCount[0]++] = other;
+                    }
+                });
+            });
+            if (touchedCount[0] == 0) {
+                return null;
+            }
+
+            // Keeps the best neighbors in a min-heap of positions in the touched array, the weakest on top
+            float[] scores = new float[touchedCount[0]];
+            PriorityQueue<Integer> best = new PriorityQueue<>(neighborsPerReview + 1,
+                    (a, b) -> Float.compare(scores[a], scores[b]));
+            double reviewFavorites = users.cardinality();
+            for (int i = 0; i < touchedCount[0]; i++) {
+                int other = work.touched[i];
+                IntBitmap otherUsers = usersByReview.get(other);
+                int otherFavorites = otherUsers != null ? otherUsers.cardinality() : counts[other];
+                scores[i] = (float) (counts[other] / Math.sqrt(reviewFavorites * Math.max(otherFavorites, counts[other])));
+                best.add(i);
+                if (best.size() > neighborsPerReview) {
+                    best.poll();
+                }
+            }
+
+            int size = best.size();
+            int[] neighborIds = new int[size];
+            int[] shared = new int[size];
+            float[] neighborScores = new float[size];
+            for (int i = size - 1; i >= 0; i--) {
+                int position = best.poll();
+                neighborIds[i] = work.touched[position];
+                shared[i] = counts[work.touched[position]];
+                neighborScores[i] = scores[position];
+            }
+            for (int i = 0; i < touchedCount[0]; i++) {
+                counts[work.touched[i]] = 0;
+            }
+            return new Neighbors(neighborIds, shared, neighborScores);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ReviewJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * ETags of review collections, derived from the rows in the database so that every node behind
+ * the load balancer answers a conditional request the same way.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReviewCollectionVersions {
+    // Size of ReviewRepository.findTop25ByOrderByReviewIDDesc
+    private static final int LATEST_LIMIT = 25;
+
+    private final ReviewJdbcRepository reviewJdbcRepository;
+
+    public String latestETag() {
+        return "\"latest-" + reviewJdbcRepository.latestReviewsFingerprint(LATEST_LIMIT) + "\"";
+    }
+
+    public String userReviewsETag(Integer userId) {
+        return "\"user-" + userId + "-" + reviewJdbcRepository.userReviewsFingerprint(userId) + "\"";
+    }
+}
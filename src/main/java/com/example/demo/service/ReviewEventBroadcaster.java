@@ -0,0 +1,212 @@
+package com.example.demo.service;
+
+import com.example.demo.event.ReviewChangedEvent;
+import com.example.demo.model.Review;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReviewEventBroadcaster {
+    private static final long EMITTER_TIMEOUT_MILLIS = Duration.ofMinutes(30).toMillis();
+    private static final int REPLAY_BUFFER_SIZE = 1000;
+    private static final int SUBSCRIBER_QUEUE_SIZE = 256;
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event()
+            .comment("heartbeat").build();
+
+    private final ObjectMapper objectMapper;
+    private final AtomicLong eventSequence = new AtomicLong(System.currentTimeMillis());
+    private final Deque<FeedEvent> replayBuffer = new ArrayDeque<>(REPLAY_BUFFER_SIZE);
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+
+    private record FeedEvent(long id, Integer userId, String contentType, Set<ResponseBodyEmitter.DataWithMediaType> sse) {
+    }
+
+    public SseEmitter subscribe(Set<String> contentTypes, Set<Integer> userIds, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(emitter, normalize(contentTypes), userIds);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        subscriber.offer(SseEmitter.event().comment("connected").reconnectTime(5000).build());
+        synchronized (replayBuffer) {
+            List<FeedEvent> missed = lastEventId != null ? eventsAfter(lastEventId) : List.of();
+            if (missed == null) {
+                subscriber.offer(SseEmitter.event().name("reset").data("{}", MediaType.APPLICATION_JSON).build());
+            } else {
+                missed.stream()
+                        .filter(subscriber::accepts)
+                        .forEach(event -> subscriber.offer(event.sse()));
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        Review review = event.review();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", event.type().name());
+        payload.put("reviewId", review.getReviewID());
+        payload.put("userId", review.getUserID());
+        payload.put("contentType", review.getContentType());
+        payload.put("review", event.type() == ReviewChangedEvent.Type.DELETED ? null : review);
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize review event for review {}", review.getReviewID(), e);
+            return;
+        }
+
+        String contentType = review.getContentType() != null ? review.getContentType().toLowerCase() : null;
+        synchronized (replayBuffer) {
+            long id = eventSequence.incrementAndGet();
+            FeedEvent feedEvent = new FeedEvent(id, review.getUserID(), contentType, SseEmitter.event()
+                    .id(String.valueOf(id))
+                    .name("review")
+                    .data(json, MediaType.APPLICATION_JSON)
+                    .build());
+            if (replayBuffer.size() == REPLAY_BUFFER_SIZE) {
+                replayBuffer.removeFirst();
+            }
+            replayBuffer.addLast(feedEvent);
+
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(feedEvent)) {
+                    subscriber.offer(feedEvent.sse());
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedRate = 15000)
+    public void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.queue.isEmpty()) {
+                subscriber.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        dispatcher.shutdownNow();
+    }
+
+    private List<FeedEvent> eventsAfter(String lastEventId) {
+        long lastId;
+        try {
+            lastId = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (lastId > eventSequence.get()) {
+            return null;
+        }
+        if (!replayBuffer.isEmpty() && lastId < replayBuffer.peekFirst().id() - 1) {
+            return null;
+        }
+        return replayBuffer.stream()
+                .filter(event -> event.id() > lastId)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private Set<String> normalize(Set<String> contentTypes) {
+        if (contentTypes == null) {
+            return Set.of();
+        }
+        return contentTypes.stream().map(String::toLowerCase).collect(Collectors.toSet());
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<String> contentTypes;
+        private final Set<Integer> userIds;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayBlockingQueue<>(SUBSCRIBER_QUEUE_SIZE);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Set<String> contentTypes, Set<Integer> userIds) {
+            this.emitter = emitter;
+            this.contentTypes = contentTypes;
+            this.userIds = userIds != null ? userIds : Set.of();
+        }
+
+        private boolean accepts(FeedEvent event) {
+            return (contentTypes.isEmpty() || contentTypes.contains(event.contentType()))
+                    && (userIds.isEmpty() || userIds.contains(event.userId()));
+        }
+
+        private void offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (!queue.offer(event)) {
+                log.debug("Disconnecting slow review feed subscriber, {} events pending", queue.size());
+                subscribers.remove(this);
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                while ((event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
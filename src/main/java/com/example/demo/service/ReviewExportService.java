@@ -0,0 +1,121 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Review;
+import com.example.demo.repository.ReviewJdbcRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@Service
+public class ReviewExportService {
+    private static final String CSV_HEADER = "reviewID,userID,contentType,contentTitle,reviewTitle,reviewDescription,coverFile,version";
+
+    private final ReviewJdbcRepository reviewJdbcRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    public ReviewExportService(ReviewJdbcRepository reviewJdbcRepository, ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager) {
+        this.reviewJdbcRepository = reviewJdbcRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void export(ReviewJdbcRepository.StreamFilter filter, Format format, boolean gzip, OutputStream out)
+            throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        try {
+            if (format == Format.CSV) {
+                exportCsv(filter, target);
+            } else {
+                exportNdjson(filter, target);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        target.flush();
+    }
+
+    private void exportNdjson(ReviewJdbcRepository.StreamFilter filter, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Review.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        readOnlyTransaction.executeWithoutResult(status -> reviewJdbcRepository.streamReviews(filter, review -> {
+            try {
+                writer.writeValue(generator, review);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        generator.flush();
+    }
+
+    private void exportCsv(ReviewJdbcRepository.StreamFilter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        readOnlyTransaction.executeWithoutResult(status -> reviewJdbcRepository.streamReviews(filter, review -> {
+            try {
+                writeCsvRecord(writer, review);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        writer.flush();
+    }
+
+    private void writeCsvRecord(Writer writer, Review review) throws IOException {
+        writer.write(String.valueOf(review.getReviewID()));
+        writer.write(',');
+        writer.write(String.valueOf(review.getUserID()));
+        writer.write(',');
+        writer.write(csvField(review.getContentType()));
+        writer.write(',');
+        writer.write(csvField(review.getContentTitle()));
+        writer.write(',');
+        writer.write(csvField(review.getReviewTitle()));
+        writer.write(',');
+        writer.write(csvField(review.getReviewDescription()));
+        writer.write(',');
+        writer.write(csvField(review.getCoverFile()));
+        writer.write(',');
+        writer.write(String.valueOf(review.getVersion()));
+        writer.write("\r\n");
+    }
+
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
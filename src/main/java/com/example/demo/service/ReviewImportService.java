@@ -0,0 +1,447 @@
+package com.example.demo.service;
+
+import com.example.demo.event.ReviewsImportedEvent;
+import com.example.demo.model.Review;
+import com.example.demo.model.User;
+import com.example.demo.repository.ReviewJdbcRepository;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReviewImportService {
+    public static final MediaType CSV = MediaType.valueOf("text/csv");
+    public static final MediaType ZIP = MediaType.valueOf("application/zip");
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int COVER_WRITER_THREADS = Math.min(8, Runtime.getRuntime().availableProcessors());
+    private static final List<String> ARCHIVE_REVIEW_ENTRIES = List.of("reviews.json", "reviews.ndjson", "reviews.csv");
+
+    private final ReviewJdbcRepository reviewJdbcRepository;
+    private final UserRepository userRepository;
+    private final CoverStorageService coverStorageService;
+    private final LogService logService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.imports.max-size:1GB}")
+    private DataSize maxImportSize;
+
+    public record ImportRow(Integer userID, String contentType, String contentTitle, String reviewTitle,
+                            String reviewDescription, String coverFile) {
+    }
+
+    public record RowError(long row, String error) {
+    }
+
+    public record ImportResult(int imported, int failed, List<RowError> errors, boolean errorsTruncated) {
+    }
+
+    private record PendingRow(long row, Review review, String archiveEntry) {
+    }
+
+    /**
+     * Imports the reviews of a JSON, NDJSON or CSV request body. A ZIP body carries the reviews as
+     * {@code reviews.json}, {@code reviews.ndjson} or {@code reviews.csv} next to the cover images they
+     * reference. The body is read as a stream and may not exceed {@code app.imports.max-size}.
+     */
+    public ImportResult importReviews(InputStream body, long contentLength, MediaType contentType,
+                                      Principal principal) throws IOException {
+        checkImportSize(contentLength);
+        String username = principal.getName();
+        User caller = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        boolean isAdmin = "ROLE_ADMIN".equals(caller.getRole().toString());
+
+        ImportContext context = new ImportContext(caller.getId(), isAdmin);
+        InputStream limited = new LimitedInputStream(body, maxImportSize.toBytes());
+        Path archivePath = null;
+        ExecutorService coverWriters = Executors.newFixedThreadPool(COVER_WRITER_THREADS);
+        try {
+            if (ZIP.includes(contentType)) {
+                // Covers are looked up by name, the archive needs random access
+                archivePath = Files.createTempFile("review-import-", ".zip");
+                Files.copy(limited, archivePath, StandardCopyOption.REPLACE_EXISTING);
+                context.archive = new ZipFile(archivePath.toFile());
+                ZipEntry reviews = findReviewsEntry(context.archive);
+                try (InputStream in = context.archive.getInputStream(reviews)) {
+                    read(in, reviews.getName().toLowerCase(Locale.ROOT).endsWith(".csv"), context, coverWriters);
+                }
+            } else {
+                read(limited, CSV.includes(contentType), context, coverWriters);
+            }
+            flushChunk(context, coverWriters);
+        } catch (ImportTooLargeException e) {
+            log.warn("Import of user {} exceeded {}, stopped after {} committed reviews", username, maxImportSize,
+                    context.imported);
+            throw e;
+        } finally {
+            coverWriters.shutdownNow();
+            if (context.archive != null) {
+                context.archive.close();
+            }
+            if (archivePath != null) {
+                Files.deleteIfExists(archivePath);
+            }
+        }
+
+        if (context.imported > 0) {
+            logService.logUserActivity(caller.getId(), "Imported " + context.imported + " reviews");
+            Set<Integer> otherUsers = new HashSet<>(context.importedUserIds);
+            otherUsers.remove(caller.getId());
+            if (!otherUsers.isEmpty()) {
+                logService.logAdminActivity(caller.getId(),
+                        "Admin imported reviews for user IDs: " + otherUsers);
+            }
+        }
+        log.info("User {} imported {} reviews, {} rows failed", username, context.imported, context.failed);
+
+        return new ImportResult(context.imported, context.failed, context.errors,
+                context.failed > context.errors.size());
+    }
+
+    private void checkImportSize(long size) throws ImportTooLargeException {
+        if (size > maxImportSize.toBytes()) {
+            throw new ImportTooLargeException(maxImportSize);
+        }
+    }
+
+    private ZipEntry findReviewsEntry(ZipFile archive) throws IOException {
+        for (String name : ARCHIVE_REVIEW_ENTRIES) {
+            ZipEntry entry = archive.getEntry(name);
+            if (entry != null && !entry.isDirectory()) {
+                return entry;
+            }
+        }
+        throw new IOException("Archive contains none of " + String.join(", ", ARCHIVE_REVIEW_ENTRIES));
+    }
+
+    private void read(InputStream in, boolean csv, ImportContext context, ExecutorService coverWriters)
+            throws IOException {
+        if (csv) {
+            readCsv(in, context, coverWriters);
+        } else {
+            readJson(in, context, coverWriters);
+        }
+    }
+
+    private void readJson(InputStream in, ImportContext context, ExecutorService coverWriters) throws IOException {
+        MappingIterator<ImportRow> rows = objectMapper.readerFor(ImportRow.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValues(in);
+        long rowNumber = 0;
+        while (true) {
+            rowNumber++;
+            ImportRow row;
+            try {
+                if (!rows.hasNextValue()) {
+                    return;
+                }
+                row = rows.nextValue();
+            } catch (ImportTooLargeException e) {
+                throw e;
+            } catch (IOException e) {
+                context.fail(rowNumber, "Malformed JSON, import stopped: " + e.getMessage());
+                return;
+            }
+            accept(rowNumber, row, context, coverWriters);
+        }
+    }
+
+    private void readCsv(InputStream in, ImportContext context, ExecutorService coverWriters) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        List<String> header = reader.readRecord();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().replace("\uFEFF", ""), i);
+        }
+
+        long rowNumber = 0;
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            if (record.stream().allMatch(String::isBlank)) {
+                continue;
+            }
+            rowNumber++;
+            String userId = column(record, columns, "userID");
+            try {
+                ImportRow row = new ImportRow(
+                        userId == null || userId.isBlank() ? null : Integer.valueOf(userId.trim()),
+                        column(record, columns, "contentType"),
+                        column(record, columns, "contentTitle"),
+                        column(record, columns, "reviewTitle"),
+                        column(record, columns, "reviewDescription"),
+                        column(record, columns, "coverFile"));
+                accept(rowNumber, row, context, coverWriters);
+            } catch (NumberFormatException e) {
+                context.fail(rowNumber, "Invalid userID: " + userId);
+            }
+        }
+    }
+
+    private String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= record.size() ? null : record.get(index);
+    }
+
+    private void accept(long rowNumber, ImportRow row, ImportContext context, ExecutorService coverWriters) {
+        String error = validate(row, context);
+        if (error != null) {
+            context.fail(rowNumber, error);
+            return;
+        }
+
+        Integer userId = row.userID() != null ? row.userID() : context.callerId;
+        Review review = new Review(userId, row.contentType().trim(), row.contentTitle().trim(),
+                row.reviewTitle() != null && !row.reviewTitle().isBlank() ? row.reviewTitle().trim() : null,
+                row.reviewDescription().trim(), null);
+        String archiveEntry = row.coverFile() != null && !row.coverFile().isBlank() ? row.coverFile().trim() : null;
+
+        context.chunk.add(new PendingRow(rowNumber, review, archiveEntry));
+        if (context.chunk.size() >= CHUNK_SIZE) {
+            flushChunk(context, coverWriters);
+        }
+    }
+
+    private String validate(ImportRow row, ImportContext context) {
+        if (row == null) {
+            return "Empty row";
+        }
+        if (isBlank(row.contentType()) || isBlank(row.contentTitle()) || isBlank(row.reviewDescription())) {
+            return "Required fields must not be empty";
+        }
+        if (row.userID() != null && !row.userID().equals(context.callerId) && !context.isAdmin) {
+            return "Only admins can import reviews for other users";
+        }
+        if (row.coverFile() != null && !row.coverFile().isBlank() && context.archive == null) {
+            return "Row references cover '" + row.coverFile() + "' but the reviews were not uploaded as a ZIP archive";
+        }
+        return null;
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private void flushChunk(ImportContext context, ExecutorService coverWriters) {
+        if (context.chunk.isEmpty()) {
+            return;
+        }
+        List<PendingRow> chunk = rejectUnknownUsers(context);
+        chunk = writeCovers(chunk, context, coverWriters);
+
+        List<Review> reviews = chunk.stream().map(PendingRow::review).collect(Collectors.toList());
+        Set<Integer> userIds = new HashSet<>();
+        int inserted = 0;
+        try {
+            transactionTemplate.executeWithoutResult(status -> reviewJdbcRepository.batchInsert(reviews));
+            reviews.forEach(review -> userIds.add(review.getUserID()));
+            inserted = reviews.size();
+        } catch (DataAccessException e) {
+            log.warn("Batch insert of {} imported reviews failed, retrying row by row", reviews.size(), e);
+            for (PendingRow pending : chunk) {
+                try {
+                    transactionTemplate.executeWithoutResult(
+                            status -> reviewJdbcRepository.batchInsert(List.of(pending.review())));
+                    userIds.add(pending.review().getUserID());
+                    inserted++;
+                } catch (DataAccessException rowException) {
+                    if (pending.review().getCoverFile() != null) {
+                        coverStorageService.release(pending.review().getCoverFile());
+                    }
+                    context.fail(pending.row(), "Database rejected row: " + rowException.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        context.imported += inserted;
+        if (!userIds.isEmpty()) {
+            context.importedUserIds.addAll(userIds);
+            eventPublisher.publishEvent(new ReviewsImportedEvent(userIds, inserted));
+        }
+    }
+
+    private List<PendingRow> rejectUnknownUsers(ImportContext context) {
+        Set<Integer> requested = context.chunk.stream()
+                .map(pending -> pending.review().getUserID())
+                .filter(userId -> !context.knownUserIds.contains(userId))
+                .collect(Collectors.toSet());
+        if (!requested.isEmpty()) {
+            userRepository.findAllById(requested).forEach(user -> context.knownUserIds.add(user.getId()));
+        }
+
+        List<PendingRow> accepted = new ArrayList<>(context.chunk.size());
+        for (PendingRow pending : context.chunk) {
+            if (context.knownUserIds.contains(pending.review().getUserID())) {
+                accepted.add(pending);
+            } else {
+                context.fail(pending.row(), "User not found with ID: " + pending.review().getUserID());
+            }
+        }
+        context.chunk.clear();
+        return accepted;
+    }
+
+    private List<PendingRow> writeCovers(List<PendingRow> chunk, ImportContext context, ExecutorService coverWriters) {
+        List<Future<String>> writes = new ArrayList<>(chunk.size());
+        for (PendingRow pending : chunk) {
+            writes.add(pending.archiveEntry() == null ? null
+                    : coverWriters.submit(() -> writeCover(context.archive, pending.archiveEntry())));
+        }
+
+        List<PendingRow> accepted = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            PendingRow pending = chunk.get(i);
+            Future<String> write = writes.get(i);
+            if (write == null) {
+                accepted.add(pending);
+                continue;
+            }
+            try {
+                pending.review().setCoverFile(write.get());
+                accepted.add(pending);
+            } catch (ExecutionException e) {
+                context.fail(pending.row(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Review import was interrupted", e);
+            }
+        }
+        return accepted;
+    }
+
+    private String writeCover(ZipFile archive, String entryName) throws IOException {
+        ZipEntry entry = archive.getEntry(entryName);
+        if (entry == null || entry.isDirectory()) {
+            throw new IOException("Cover '" + entryName + "' not found in archive");
+        }
+        coverStorageService.checkSize(entry.getSize());
+        try (InputStream in = archive.getInputStream(entry)) {
+            return coverStorageService.store(in, entryName);
+        }
+    }
+
+    private static class ImportContext {
+        private final Integer callerId;
+        private final boolean isAdmin;
+        private final List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<RowError> errors = new ArrayList<>();
+        private final Set<Integer> knownUserIds = new HashSet<>();
+        private final Set<Integer> importedUserIds = new HashSet<>();
+        private ZipFile archive;
+        private int imported;
+        private int failed;
+
+        private ImportContext(Integer callerId, boolean isAdmin) {
+            this.callerId = callerId;
+            this.isAdmin = isAdmin;
+            this.knownUserIds.add(callerId);
+        }
+
+        private void fail(long row, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(row, error));
+            }
+        }
+    }
+
+    /**
+     * Fails the read once more than the limit was consumed, the request body has no other bound.
+     */
+    private class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long consumed;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long bytes) throws IOException {
+            consumed += bytes;
+            if (consumed > limit) {
+                throw new ImportTooLargeException(maxImportSize);
+            }
+        }
+    }
+
+    /**
+     * The request body is larger than {@code app.imports.max-size}. Unlike a malformed payload, which ends the
+     * import with the rows read so far, this fails the request, only chunks committed before stay imported.
+     */
+    public static class ImportTooLargeException extends IOException {
+        public ImportTooLargeException(DataSize maxSize) {
+            super("Import exceeds the maximum size of " + maxSize);
+        }
+    }
+}
@@ -1,36 +1,35 @@
 package com.example.demo.service;
 
+import com.example.demo.event.ReviewChangedEvent;
 import com.example.demo.model.Review;
 import com.example.demo.model.User;
 import com.example.demo.repository.ReviewRepository;
 import com.example.demo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.security.Principal;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ReviewService {
-    private static final String UPLOADS_DIR = "uploads";
     private final ReviewRepository reviewRepository;
     private final UserRepository userRepository;
     private final LogService logService;
     private final UserService userService;
     private final UserFavoriteReviewService userFavoriteReviewService;
+    private final CoverStorageService coverStorageService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Review> getReviewsByUserId(Integer userId) {
         return reviewRepository.findByUserID(userId);
@@ -60,7 +59,7 @@ public class ReviewService {
 
         String fileName = null;
         if (coverFile != null && !coverFile.isEmpty()) {
-            fileName = handleFileUpload(coverFile);
+            fileName = coverStorageService.store(coverFile);
         }
 
         Review review = new Review(null, userId, contentType, contentTitle, reviewTitle, reviewDescription, fileName);
@@ -68,13 +67,15 @@ public class ReviewService {
 
         logService.logUserActivity(userId, "Created review: " + contentTitle);
         logService.logReviewActivity(savedReview.getReviewID(), "Review created");
+        eventPublisher.publishEvent(new ReviewChangedEvent(ReviewChangedEvent.Type.CREATED, savedReview));
 
         return savedReview;
     }
 
     @Transactional
     public Review updateReview(Integer reviewId, String contentType, String contentTitle, String reviewTitle,
-                               String reviewDescription, MultipartFile coverFile, Principal principal) throws IOException {
+                               String reviewDescription, MultipartFile coverFile, Long expectedVersion,
+                               Principal principal) throws IOException {
         String username = principal.getName();
         Integer userId = userService.getUserIdByUsername(username);
 
@@ -89,24 +90,35 @@ public class ReviewService {
             throw new AccessDeniedException("You are not authorized to update this review");
         }
 
+        if (expectedVersion != null && !expectedVersion.equals(existingReview.getVersion())) {
+            throw new OptimisticLockingFailureException("Review " + reviewId + " was modified by another request");
+        }
+
+        boolean hasNewCover = coverFile != null && !coverFile.isEmpty();
+        if (!hasNewCover && existingReview.hasSameContent(contentType, contentTitle, reviewTitle, reviewDescription)) {
+            log.debug("Skipping update of review {} - submitted content is unchanged", reviewId);
+            return existingReview;
+        }
+
         existingReview.setContentType(contentType);
         existingReview.setContentTitle(contentTitle);
         existingReview.setReviewTitle(reviewTitle);
         existingReview.setReviewDescription(reviewDescription);
 
-        if (coverFile != null && !coverFile.isEmpty()) {
-            if (existingReview.getCoverFile() != null) {
-                deleteFile(existingReview.getCoverFile());
-            }
-
-            String newFileName = handleFileUpload(coverFile);
-            existingReview.setCoverFile(newFileName);
+        String replacedCover = null;
+        if (hasNewCover) {
+            replacedCover = existingReview.getCoverFile();
+            existingReview.setCoverFile(coverStorageService.store(coverFile));
         }
 
-        Review updatedReview = reviewRepository.save(existingReview);
+        Review updatedReview = reviewRepository.saveAndFlush(existingReview);
+        if (replacedCover != null) {
+            coverStorageService.release(replacedCover);
+        }
 
         logService.logUserActivity(userId, "Updated review: " + contentTitle);
         logService.logReviewActivity(reviewId, "Review updated");
+        eventPublisher.publishEvent(new ReviewChangedEvent(ReviewChangedEvent.Type.UPDATED, updatedReview));
 
         if (isAdmin && !existingReview.getUserID().equals(userId)) {
             logService.logAdminActivity(userId,
@@ -131,46 +143,21 @@ public class ReviewService {
         if (!review.getUserID().equals(userId) && !isAdmin) {
             throw new AccessDeniedException("You are not authorized to delete this review");
         }
-        if (review.getCoverFile() != null) {
-            deleteFile(review.getCoverFile());
-        }
-
         userFavoriteReviewService.removeAllFavoritesForReview(reviewId);
 
         reviewRepository.delete(review);
+        reviewRepository.flush();
+        if (review.getCoverFile() != null) {
+            coverStorageService.release(review.getCoverFile());
+        }
 
         logService.logUserActivity(userId, "Deleted review: " + review.getContentTitle());
         logService.logReviewActivity(reviewId, "Review deleted");
+        eventPublisher.publishEvent(new ReviewChangedEvent(ReviewChangedEvent.Type.DELETED, review));
 
         if (isAdmin && !review.getUserID().equals(userId)) {
             logService.logAdminActivity(userId,
                     "Admin deleted review ID: " + reviewId + " by user ID: " + review.getUserID());
         }
     }
-
-    private String handleFileUpload(MultipartFile file) throws IOException {
-        File uploadsDir = new File(UPLOADS_DIR);
-        if (!uploadsDir.exists()) {
-            uploadsDir.mkdirs();
-        }
-
-        String originalFileName = file.getOriginalFilename();
-        String fileExtension = originalFileName != null ? originalFileName.substring(originalFileName.lastIndexOf('.'))
-                : "";
-        String newFileName = UUID.randomUUID() + fileExtension;
-
-        Path filePath = Paths.get(UPLOADS_DIR, newFileName);
-        Files.write(filePath, file.getBytes());
-
-        return newFileName;
-    }
-
-    private void deleteFile(String fileName) {
-        try {
-            Path filePath = Paths.get(UPLOADS_DIR, fileName);
-            Files.deleteIfExists(filePath);
-        } catch (IOException e) {
-            log.error("Failed to delete file: {}", fileName, e);
-        }
-    }
 }
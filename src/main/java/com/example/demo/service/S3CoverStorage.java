@@ -0,0 +1,494 @@
+package com.example.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Stores covers in an S3 compatible bucket (AWS S3, MinIO, ...). Requests are signed with AWS Signature Version 4
+ * and sent with the JDK HTTP client, bodies are streamed from and to disk and never buffered on the heap.
+ * Responses are read with the JDK XML parser.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3")
+public class S3CoverStorage implements CoverStorage {
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final DateTimeFormatter AMZ_DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String S3_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final Clock clock;
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final boolean pathStyleAccess;
+    private final String keyPrefix;
+    private final long multipartThreshold;
+    private final long partSize;
+
+    @Autowired
+    public S3CoverStorage(@Value("${app.storage.s3.endpoint}") String endpoint,
+                          @Value("${app.storage.s3.region:us-east-1}") String region,
+                          @Value("${app.storage.s3.bucket}") String bucket,
+                          @Value("${app.storage.s3.access-key}") String accessKey,
+                          @Value("${app.storage.s3.secret-key}") String secretKey,
+                          @Value("${app.storage.s3.path-style-access:true}") boolean pathStyleAccess,
+                          @Value("${app.storage.s3.key-prefix:covers/}") String keyPrefix,
+                          @Value("${app.storage.s3.multipart-threshold:16MB}") DataSize multipartThreshold,
+                          @Value("${app.storage.s3.part-size:8MB}") DataSize partSize) {
+        this(Clock.systemUTC(), endpoint, region, bucket, accessKey, secretKey, pathStyleAccess, keyPrefix,
+                multipartThreshold, partSize);
+    }
+
+    S3CoverStorage(Clock clock, String endpoint, String region, String bucket, String accessKey, String secretKey,
+                   boolean pathStyleAccess, String keyPrefix, DataSize multipartThreshold, DataSize partSize) {
+        this.clock = clock;
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.pathStyleAccess = pathStyleAccess;
+        this.keyPrefix = keyPrefix;
+        this.multipartThreshold = multipartThreshold.toBytes();
+        // S3 rejects parts smaller than 5MB except for the last one
+        this.partSize = Math.max(partSize.toBytes(), DataSize.ofMegabytes(5).toBytes());
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String name) throws IOException {
+        HttpResponse<Void> response = send(signedRequest("HEAD", name, Map.of(), Map.of())
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+            return Optional.empty();
+        }
+        checkStatus(response.statusCode(), "HEAD", name, null);
+
+        long length = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        long lastModified = response.headers().firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                .orElse(0L);
+        return Optional.of(new StoredObject(name, length, lastModified, null));
+    }
+
+    @Override
+    public InputStream get(String name) throws IOException {
+        HttpResponse<InputStream> response = send(signedRequest("GET", name, Map.of(), Map.of()).GET(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+            response.body().close();
+            throw new NoSuchFileException(name);
+        }
+        if (response.statusCode() / 100 != 2) {
+            try (InputStream body = response.body()) {
+                checkStatus(response.statusCode(), "GET", name, new String(body.readNBytes(1024), StandardCharsets.UTF_8));
+            }
+        }
+        return response.body();
+    }
+
+    @Override
+    public void put(String name, Path source, String contentType) throws IOException {
+        long size = Files.size(source);
+        if (size < multipartThreshold) {
+            HttpResponse<String> response = send(signedRequest("PUT", name, Map.of(), Map.of("Content-Type", contentType))
+                    .PUT(HttpRequest.BodyPublishers.ofFile(source)), HttpResponse.BodyHandlers.ofString());
+            checkStatus(response.statusCode(), "PUT", name, response.body());
+            return;
+        }
+        putMultipart(name, source, size, contentType);
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        HttpResponse<String> response = send(signedRequest("DELETE", name, Map.of(), Map.of()).DELETE(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != HttpStatus.NOT_FOUND.value()) {
+            checkStatus(response.statusCode(), "DELETE", name, response.body());
+        }
+    }
+
+    @Override
+    public void list(Consumer<StoredObject> consumer) throws IOException {
+        String continuationToken = null;
+        do {
+            Map<String, String> query = new TreeMap<>();
+            query.put("list-type", "2");
+            query.put("prefix", keyPrefix);
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+            HttpResponse<String> response = send(signedRequest("GET", bucketUri(), query, Map.of()).GET(),
+                    HttpResponse.BodyHandlers.ofString());
+            checkStatus(response.statusCode(), "LIST", bucket, response.body());
+
+            Element result = parseXml(response.body());
+            for (Element entry : children(result, "Contents")) {
+                String key = childText(entry, "Key");
+                if (key == null || !key.startsWith(keyPrefix)) {
+                    continue;
+                }
+                String lastModified = childText(entry, "LastModified");
+                String size = childText(entry, "Size");
+                consumer.accept(new StoredObject(key.substring(keyPrefix.length()),
+                        size != null ? Long.parseLong(size) : 0,
+                        lastModified != null ? Instant.parse(lastModified).toEpochMilli() : 0, null));
+            }
+            continuationToken = "true".equals(childText(result, "IsTruncated"))
+                    ? childText(result, "NextContinuationToken")
+                    : null;
+        } while (continuationToken != null);
+    }
+
+    @Override
+    public Optional<URI> presignedUrl(String name, Duration ttl, String cacheControl) {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        URI uri = objectUri(name);
+
+        Map<String, String> query = new TreeMap<>();
+        query.put("X-Amz-Algorithm", "AWS4-HMAC-SHA256");
+        query.put("X-Amz-Credential", accessKey + "/" + scope(now));
+        query.put("X-Amz-Date", AMZ_DATE.format(now));
+        query.put("X-Amz-Expires", String.valueOf(ttl.toSeconds()));
+        query.put("X-Amz-SignedHeaders", "host");
+        if (cacheControl != null) {
+            query.put("response-cache-control", cacheControl);
+        }
+
+        String canonicalQuery = canonicalQuery(query);
+        String canonicalRequest = "GET\n" + uri.getRawPath() + "\n" + canonicalQuery + "\n"
+                + "host:" + hostHeader(uri) + "\n\nhost\n" + UNSIGNED_PAYLOAD;
+        String signature = sign(now, canonicalRequest);
+        return Optional.of(URI.create(uri + "?" + canonicalQuery + "&X-Amz-Signature=" + signature));
+    }
+
+    private void putMultipart(String name, Path source, long size, String contentType) throws IOException {
+        HttpResponse<String> created = send(signedRequest("POST", name, Map.of("uploads", ""), Map.of("Content-Type", contentType))
+                .POST(HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.ofString());
+        checkStatus(created.statusCode(), "POST", name, created.body());
+        String uploadId = childText(parseXml(created.body()), "UploadId");
+        if (uploadId == null) {
+            throw new IOException("S3 did not return an upload id for " + name);
+        }
+
+        try {
+            List<String> partETags = new ArrayList<>();
+            for (long offset = 0; offset < size; offset += partSize) {
+                int partNumber = partETags.size() + 1;
+                long length = Math.min(partSize, size - offset);
+                long partOffset = offset;
+                HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                        HttpRequest.BodyPublishers.ofInputStream(() -> openRange(source, partOffset, length)), length);
+                HttpResponse<String> part = send(signedRequest("PUT", name,
+                                Map.of("partNumber", String.valueOf(partNumber), "uploadId", uploadId), Map.of()).PUT(body),
+                        HttpResponse.BodyHandlers.ofString());
+                checkStatus(part.statusCode(), "PUT part " + partNumber, name, part.body());
+                partETags.add(part.headers().firstValue("ETag")
+                        .orElseThrow(() -> new IOException("S3 did not return an ETag for part " + partNumber + " of " + name)));
+            }
+
+            HttpResponse<String> completed = send(signedRequest("POST", name, Map.of("uploadId", uploadId), Map.of("Content-Type", "application/xml"))
+                    .POST(HttpRequest.BodyPublishers.ofString(completeManifest(partETags))), HttpResponse.BodyHandlers.ofString());
+            checkStatus(completed.statusCode(), "POST", name, completed.body());
+            // Completion errors can arrive with a 200 status once S3 has started sending the response
+            if ("Error".equals(parseXml(completed.body()).getTagName())) {
+                throw new IOException("S3 failed to complete the upload of " + name + ": " + completed.body());
+            }
+        } catch (IOException | RuntimeException e) {
+            abortMultipart(name, uploadId);
+            throw e;
+        }
+    }
+
+    private void abortMultipart(String name, String uploadId) {
+        try {
+            send(signedRequest("DELETE", name, Map.of("uploadId", uploadId), Map.of()).DELETE(),
+                    HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            log.warn("Failed to abort multipart upload {} of {}", uploadId, name, e);
+        }
+    }
+
+    private HttpRequest.Builder signedRequest(String method, String name, Map<String, String> query, Map<String, String> headers) {
+        return signedRequest(method, objectUri(name), query, headers);
+    }
+
+    private HttpRequest.Builder signedRequest(String method, URI uri, Map<String, String> query, Map<String, String> headers) {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        String canonicalQuery = canonicalQuery(new TreeMap<>(query));
+
+        Map<String, String> signedHeaders = new TreeMap<>();
+        signedHeaders.put("host", hostHeader(uri));
+        signedHeaders.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        signedHeaders.put("x-amz-date", AMZ_DATE.format(now));
+        headers.forEach((header, value) -> signedHeaders.put(header.toLowerCase(), value.trim()));
+
+        StringBuilder canonicalHeaders = new StringBuilder();
+        signedHeaders.forEach((header, value) -> canonicalHeaders.append(header).append(':').append(value).append('\n'));
+        String signedHeaderNames = String.join(";", signedHeaders.keySet());
+
+        String canonicalRequest = method + "\n" + uri.getRawPath() + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaderNames + "\n" + UNSIGNED_PAYLOAD;
+        String authorization = "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope(now)
+                + ", SignedHeaders=" + signedHeaderNames + ", Signature=" + sign(now, canonicalRequest);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(canonicalQuery.isEmpty() ? uri : URI.create(uri + "?" + canonicalQuery))
+                .timeout(Duration.ofMinutes(5))
+                .header("Authorization", authorization)
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("x-amz-date", signedHeaders.get("x-amz-date"));
+        headers.forEach(builder::header);
+        return builder;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for S3");
+        }
+    }
+
+    private void checkStatus(int status, String operation, String name, String body) throws IOException {
+        if (status / 100 != 2) {
+            throw new IOException("S3 " + operation + " of " + name + " failed with status " + status
+                    + (body != null && !body.isBlank() ? ": " + body : ""));
+        }
+    }
+
+    private URI objectUri(String name) {
+        return URI.create(bucketUri() + uriEncode(keyPrefix + name, false));
+    }
+
+    private URI bucketUri() {
+        if (pathStyleAccess) {
+            return URI.create(endpoint + "/" + uriEncode(bucket, true) + "/");
+        }
+        return URI.create(endpoint.getScheme() + "://" + bucket + "." + endpoint.getRawAuthority() + "/");
+    }
+
+    static String completeManifest(List<String> partETags) {
+        try {
+            Document document = newDocumentBuilder().newDocument();
+            Element root = document.createElementNS(S3_NAMESPACE, "CompleteMultipartUpload");
+            document.appendChild(root);
+            for (int i = 0; i < partETags.size(); i++) {
+                Element part = document.createElementNS(S3_NAMESPACE, "Part");
+                part.appendChild(textElement(document, "PartNumber", String.valueOf(i + 1)));
+                part.appendChild(textElement(document, "ETag", partETags.get(i)));
+                root.appendChild(part);
+            }
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            StringWriter xml = new StringWriter();
+            transformer.transform(new DOMSource(document), new StreamResult(xml));
+            return xml.toString();
+        } catch (ParserConfigurationException | TransformerException e) {
+            throw new IllegalStateException("Failed to write the multipart manifest", e);
+        }
+    }
+
+    /**
+     * Root element of an S3 response. Document type declarations are rejected, S3 never sends them and they are
+     * the way into entity expansion.
+     */
+    static Element parseXml(String xml) throws IOException {
+        try {
+            return newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Unreadable S3 response: " + e.getMessage(), e);
+        }
+    }
+
+    static List<Element> children(Element parent, String name) {
+        List<Element> children = new ArrayList<>();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element && name.equals(element.getLocalName())) {
+                children.add(element);
+            }
+        }
+        return children;
+    }
+
+    static String childText(Element parent, String name) {
+        List<Element> children = children(parent, name);
+        return children.isEmpty() ? null : children.get(0).getTextContent();
+    }
+
+    private static Element textElement(Document document, String name, String text) {
+        Element element = document.createElementNS(S3_NAMESPACE, name);
+        element.setTextContent(text);
+        return element;
+    }
+
+    private static DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        factory.setXIncludeAware(false);
+        factory.setExpandEntityReferences(false);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        // Parse errors are thrown, not printed to stderr
+        builder.setErrorHandler(new DefaultHandler());
+        return builder;
+    }
+
+    private String hostHeader(URI uri) {
+        return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
+    private String scope(ZonedDateTime now) {
+        return AMZ_DAY.format(now) + "/" + region + "/s3/aws4_request";
+    }
+
+    String sign(ZonedDateTime now, String canonicalRequest) {
+        try {
+            String stringToSign = "AWS4-HMAC-SHA256\n" + AMZ_DATE.format(now) + "\n" + scope(now) + "\n"
+                    + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+
+            byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), AMZ_DAY.format(now));
+            key = hmac(key, region);
+            key = hmac(key, "s3");
+            key = hmac(key, "aws4_request");
+            return HexFormat.of().formatHex(hmac(key, stringToSign));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign S3 request", e);
+        }
+    }
+
+    private byte[] hmac(byte[] key, String data) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String canonicalQuery(Map<String, String> sortedQuery) {
+        StringBuilder query = new StringBuilder();
+        sortedQuery.forEach((key, value) -> {
+            if (!query.isEmpty()) {
+                query.append('&');
+            }
+            query.append(uriEncode(key, true)).append('=').append(uriEncode(value, true));
+        });
+        return query.toString();
+    }
+
+    private static String uriEncode(String value, boolean encodeSlash) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static InputStream openRange(Path source, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+            channel.position(offset);
+            return new RangeInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open " + source + " at offset " + offset, e);
+        }
+    }
+
+    private static class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.demo.service;
+
+import com.example.demo.event.FavoriteToggledEvent;
+import com.example.demo.event.ReviewChangedEvent;
+import com.example.demo.model.Review;
+import com.example.demo.repository.ReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Trending reviews ranked by exponentially time-decayed activity. Scores use forward decay: an event at time t
+ * adds {@code weight * e^(λ(t - landmark))}, so stored scores never need to be decayed and compare directly,
+ * the landmark is only moved forward before the factors grow too large. The top reviews per content type
+ * are ranked from the scores every minute and served from that snapshot.
+ */
+@Slf4j
+@Service
+public class TrendingService {
+    public static final String ALL_CONTENT_TYPES = "all";
+
+    private static final double VIEW_WEIGHT = 1;
+    private static final double FAVORITE_WEIGHT = 5;
+    // Move the landmark once the factors reach e^50, far below the double range
+    private static final double MAX_EXPONENT = 50;
+    private static final int MAX_LIMIT = 100;
+
+    private final ReviewRepository reviewRepository;
+    private final double decayRate;
+    private final int topK;
+    private final double minScore;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    // Updates share the lock, moving the landmark rescales all scores exclusively
+    private final ReentrantReadWriteLock landmarkLock = new ReentrantReadWriteLock();
+    private volatile long landmark = System.currentTimeMillis();
+    private volatile Map<String, List<Ranked>> ranking = Map.of();
+
+    private static class Entry {
+        private volatile String contentType;
+        private final DoubleAdder score = new DoubleAdder();
+
+        Entry(String contentType) {
+            this.contentType = contentType;
+        }
+    }
+
+    public record Ranked(Integer reviewId, double score) {
+    }
+
+    public record TrendingReview(Review review, double score) {
+    }
+
+    public TrendingService(ReviewRepository reviewRepository,
+                           @Value("${app.trending.half-life:PT24H}") Duration halfLife,
+                           @Value("${app.trending.top-k:100}") int topK,
+                           @Value("${app.trending.min-score:0.05}") double minScore) {
+        this.reviewRepository = reviewRepository;
+        this.decayRate = Math.log(2) / halfLife.toMillis();
+        this.topK = topK;
+        this.minScore = minScore;
+    }
+
+    public void recordView(Review review) {
+        record(review.getReviewID(), normalize(review.getContentType()), VIEW_WEIGHT);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFavoriteToggled(FavoriteToggledEvent event) {
+        Entry entry = entries.get(event.reviewId());
+        String contentType = entry != null ? entry.contentType : reviewRepository.findById(event.reviewId())
+                .map(review -> normalize(review.getContentType()))
+                .orElse(null);
+        if (contentType != null) {
+            record(event.reviewId(), contentType, event.favorited() ? FAVORITE_WEIGHT : -FAVORITE_WEIGHT);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        Review review = event.review();
+        if (event.type() == ReviewChangedEvent.Type.DELETED) {
+            entries.remove(review.getReviewID());
+            return;
+        }
+        Entry entry = entries.get(review.getReviewID());
+        if (entry != null) {
+            entry.contentType = normalize(review.getContentType());
+        }
+    }
+
+    /**
+     * The trending reviews of a content type, or of all types for {@code null} or "all", highest score first.
+     * Scores are relative to the current time, an event that just happened counts with its full weight.
+     */
+    public List<TrendingReview> getTrending(String contentType, int limit) {
+        String key = contentType == null || contentType.isBlank() ? ALL_CONTENT_TYPES : normalize(contentType);
+        List<Ranked> ranked = ranking.getOrDefault(key, List.of());
+        List<Ranked> page = ranked.subList(0, Math.min(ranked.size(), Math.max(1, Math.min(limit, MAX_LIMIT))));
+        if (page.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, Review> reviews = reviewRepository.findAllById(page.stream().map(Ranked::reviewId).toList()).stream()
+                .collect(Collectors.toMap(Review::getReviewID, Function.identity()));
+        double currentFactor = Math.exp(-decayRate * (System.currentTimeMillis() - landmark));
+        List<TrendingReview> trending = new ArrayList<>(page.size());
+        for (Ranked entry : page) {
+            Review review = reviews.get(entry.reviewId());
+            if (review != null) {
+                trending.add(new TrendingReview(review, entry.score() * currentFactor));
+            }
+        }
+        return trending;
+    }
+
+    /**
+     * Ranks the top reviews per content type into a new snapshot. Reviews whose score decayed below
+     * the minimum are dropped, so the map only holds recently active reviews.
+     */
+    @Scheduled(fixedDelayString = "${app.trending.rank-interval:PT1M}")
+    public void rank() {
+        rebaseIfNeeded();
+        double threshold = minScore * Math.exp(decayRate * (System.currentTimeMillis() - landmark));
+        Comparator<Ranked> byScore = Comparator.comparingDouble(Ranked::score);
+        Map<String, PriorityQueue<Ranked>> heaps = new HashMap<>();
+        PriorityQueue<Ranked> all = new PriorityQueue<>(topK + 1, byScore);
+
+        entries.entrySet().removeIf(mapEntry -> {
+            double score = mapEntry.getValue().score.sum();
+            if (score < threshold) {
+                return true;
+            }
+            Ranked ranked = new Ranked(mapEntry.getKey(), score);
+            offer(all, ranked);
+            offer(heaps.computeIfAbsent(mapEntry.getValue().contentType, type -> new PriorityQueue<>(topK + 1, byScore)), ranked);
+            return false;
+        });
+
+        Map<String, List<Ranked>> snapshot = new HashMap<>();
+        snapshot.put(ALL_CONTENT_TYPES, sorted(all));
+        heaps.forEach((contentType, heap) -> snapshot.put(contentType, sorted(heap)));
+        ranking = snapshot;
+    }
+
+    private void record(Integer reviewId, String contentType, double weight) {
+        landmarkLock.readLock().lock();
+        try {
+            double decayed = weight * Math.exp(decayRate * (System.currentTimeMillis() - landmark));
+            entries.computeIfAbsent(reviewId, id -> new Entry(contentType)).score.add(decayed);
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+    }
+
+    private void rebaseIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (decayRate * (now - landmark) < MAX_EXPONENT) {
+            return;
+        }
+        landmarkLock.writeLock().lock();
+        try {
+            double factor = Math.exp(-decayRate * (now - landmark));
+            for (Entry entry : entries.values()) {
+                double score = entry.score.sumThenReset();
+                entry.score.add(score * factor);
+            }
+            landmark = now;
+            log.debug("Moved the trending landmark, rescaled {} scores", entries.size());
+        } finally {
+            landmarkLock.writeLock().unlock();
+        }
+    }
+
+    private void offer(PriorityQueue<Ranked> heap, Ranked ranked) {
+        heap.add(ranked);
+        if (heap.size() > topK) {
+            heap.poll();
+        }
+    }
+
+    private static List<Ranked> sorted(PriorityQueue<Ranked> heap) {
+        List<Ranked> ranked = new ArrayList<>(heap);
+        ranked.sort(Comparator.comparingDouble(Ranked::score).reversed());
+        return Collections.unmodifiableList(ranked);
+    }
+
+    private static String normalize(String contentType) {
+        return contentType == null ? "" : contentType.trim().toLowerCase(Locale.ROOT);
+    }
+}
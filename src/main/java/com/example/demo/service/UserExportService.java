@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import com.example.demo.model.UserSummary;
+import com.example.demo.repository.UserJdbcRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams users to the response as they are read, the table is never held in memory. The read-only
+ * transaction lets the driver fetch the rows with a cursor.
+ */
+@Service
+public class UserExportService {
+    private static final String CSV_HEADER = "id,username,email,role";
+
+    private final UserJdbcRepository userJdbcRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    public UserExportService(UserJdbcRepository userJdbcRepository, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.userJdbcRepository = userJdbcRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void export(UserJdbcRepository.UserFilter filter, Format format, boolean gzip, OutputStream out)
+            throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        try {
+            if (format == Format.CSV) {
+                exportCsv(filter, target);
+            } else {
+                exportNdjson(filter, target);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        target.flush();
+    }
+
+    private void exportNdjson(UserJdbcRepository.UserFilter filter, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(UserSummary.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        readOnlyTransaction.executeWithoutResult(status -> userJdbcRepository.streamUsers(filter, user -> {
+            try {
+                writer.writeValue(generator, user);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        generator.flush();
+    }
+
+    private void exportCsv(UserJdbcRepository.UserFilter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        readOnlyTransaction.executeWithoutResult(status -> userJdbcRepository.streamUsers(filter, user -> {
+            try {
+                writer.write(String.valueOf(user.id()));
+                writer.write(',');
+                writer.write(csvField(user.username()));
+                writer.write(',');
+                writer.write(csvField(user.email()));
+                writer.write(',');
+                writer.write(user.role() != null ? user.role().name() : "");
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        writer.flush();
+    }
+
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
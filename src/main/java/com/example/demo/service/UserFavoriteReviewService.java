@@ -1,55 +1,117 @@
 package com.example.demo.service;
 
-import com.example.demo.model.Review;
+import com.example.demo.event.FavoriteToggledEvent;
+import com.example.demo.model.CustomUserDetails;
+import com.example.demo.model.FavoriteReviewSummary;
 import com.example.demo.model.User;
 import com.example.demo.model.UserFavoriteReview;
 import com.example.demo.repository.ReviewRepository;
+import com.example.demo.repository.UserFavoriteJdbcRepository;
 import com.example.demo.repository.UserFavoriteReviewRepository;
 import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserFavoriteReviewService {
+    private static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_STATUS_BATCH_SIZE = 200;
 
     private final UserFavoriteReviewRepository userFavoriteReviewRepository;
+    private final UserFavoriteJdbcRepository userFavoriteJdbcRepository;
     private final UserRepository userRepository;
     private final ReviewRepository reviewRepository;
     private final LogService logService;
+    private final FavoriteCountService favoriteCountService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Transactional
-    public boolean toggleFavorite(Integer reviewId, Principal principal) {
-        String username = principal.getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    public record FavoritePage(List<FavoriteReviewSummary> favorites, Integer nextCursor) {
+    }
 
-        if (!reviewRepository.existsById(reviewId)) {
-            throw new RuntimeException("Review not found with ID: " + reviewId);
+    public record FavoriteStatus(Integer reviewId, @JsonProperty("isFavorited") boolean favorited, long favoriteCount) {
+    }
+
+    /**
+     * Result of a favorite change. {@code changed} is false when the favorite already was in the requested state.
+     */
+    public record FavoriteChange(boolean favorited, boolean changed) {
+    }
+
+    /**
+     * Removes duplicate favorites left from before the unique constraint existed and adds the constraint,
+     * schema update skips it while duplicates are present. Runs before the favorite counts are loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void enforceUniqueFavorites() {
+        int duplicates = userFavoriteJdbcRepository.deleteDuplicates();
+        if (duplicates > 0) {
+            log.warn("Removed {} duplicate favorite reviews", duplicates);
         }
+        userFavoriteJdbcRepository.addUniqueConstraint();
+    }
 
-        var existingFavorite = userFavoriteReviewRepository.findByUserIdAndReviewId(user.getId(), reviewId);
+    /**
+     * Adds or removes the favorite in one statement. Review existence is only queried when nothing changed.
+     */
+    @Transactional
+    public boolean toggleFavorite(Integer reviewId, Principal principal) {
+        Integer userId = resolveUserId(principal);
+        UserFavoriteJdbcRepository.ToggleResult result = userFavoriteJdbcRepository.toggle(userId, reviewId);
 
-        if (existingFavorite.isPresent()) {
-            userFavoriteReviewRepository.deleteByUserIdAndReviewId(user.getId(), reviewId);
-            logService.logUserActivity(user.getId(), "Removed review " + reviewId + " from favorites");
-            log.info("User {} removed review {} from favorites", username, reviewId);
+        if (result.removed()) {
+            favoriteChanged(userId, reviewId, false);
             return false;
-        } else {
-            UserFavoriteReview favorite = new UserFavoriteReview(user.getId(), reviewId);
-            userFavoriteReviewRepository.save(favorite);
-            logService.logUserActivity(user.getId(), "Added review " + reviewId + " to favorites");
-            log.info("User {} added review {} to favorites", username, reviewId);
+        }
+        if (result.added()) {
+            favoriteChanged(userId, reviewId, true);
             return true;
         }
+        // A concurrent request of the same user added it first, unless the review does not exist
+        requireReview(reviewId);
+        return true;
+    }
+
+    /**
+     * Sets the favorite state, repeating the same request has no further effect.
+     */
+    @Transactional
+    public FavoriteChange setFavorite(Integer reviewId, boolean favorited, Principal principal) {
+        Integer userId = resolveUserId(principal);
+        boolean changed = favorited
+                ? userFavoriteJdbcRepository.add(userId, reviewId)
+                : userFavoriteJdbcRepository.remove(userId, reviewId);
+
+        if (changed) {
+            favoriteChanged(userId, reviewId, favorited);
+        } else if (favorited) {
+            requireReview(reviewId);
+        }
+        return new FavoriteChange(favorited, changed);
     }
 
     public boolean isFavorited(Integer reviewId, Principal principal) {
@@ -57,39 +119,115 @@ public class UserFavoriteReviewService {
             return false;
         }
 
-        String username = principal.getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        Integer userId = resolveUserId(principal);
+        return userFavoriteReviewRepository.findByUserIdAndReviewId(userId, reviewId).isPresent();
+    }
 
-        return userFavoriteReviewRepository.findByUserIdAndReviewId(user.getId(), reviewId).isPresent();
+    /**
+     * Favorite flags and counts for a whole page of reviews. The flags come from one query since the favorite
+     * index may lag behind removals on other nodes, the counts are answered from memory.
+     */
+    public List<FavoriteStatus> getFavoriteStatuses(Collection<Integer> reviewIds, Principal principal) {
+        Set<Integer> ids = new LinkedHashSet<>(reviewIds);
+        ids.remove(null);
+        if (ids.size() > MAX_STATUS_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_STATUS_BATCH_SIZE + " review IDs can be checked at once");
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Predicate<Integer> favorited = favoritedLookup(principal, ids);
+        Map<Integer, Long> counts = favoriteCountService.getCounts(ids);
+
+        List<FavoriteStatus> statuses = new ArrayList<>(ids.size());
+        for (Integer reviewId : ids) {
+            statuses.add(new FavoriteStatus(reviewId, favorited.test(reviewId), counts.get(reviewId)));
+        }
+        return statuses;
     }
 
-    public List<Review> getUserFavoriteReviews(Principal principal) {
+    private Predicate<Integer> favoritedLookup(Principal principal, Set<Integer> reviewIds) {
+        if (principal == null) {
+            return reviewId -> false;
+        }
+        Integer userId = resolveUserId(principal);
+        return new HashSet<>(userFavoriteReviewRepository.findFavoritedReviewIds(userId, reviewIds))::contains;
+    }
+
+    /**
+     * One page of the user's favorites, most recently favorited first. {@code before} is the
+     * {@code favoriteId} cursor returned with the previous page.
+     */
+    public FavoritePage getUserFavoriteReviews(Principal principal, Integer before, int limit) {
         String username = principal.getName();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        List<UserFavoriteReview> userFavorites = userFavoriteReviewRepository.findByUserId(user.getId());
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra row tells whether another page follows without a count query
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<FavoriteReviewSummary> favorites = before == null
+                ? userFavoriteReviewRepository.findFavoriteSummaries(user.getId(), pageable)
+                : userFavoriteReviewRepository.findFavoriteSummariesBefore(user.getId(), before, pageable);
 
-        return userFavorites.stream()
-                .map(favorite -> reviewRepository.findById(favorite.getReviewId()))
-                .filter(optionalReview -> optionalReview.isPresent())
-                .map(optionalReview -> optionalReview.get())
-                .collect(Collectors.toList());
+        if (favorites.size() <= pageSize) {
+            return new FavoritePage(favorites, null);
+        }
+        List<FavoriteReviewSummary> page = favorites.subList(0, pageSize);
+        return new FavoritePage(page, page.get(pageSize - 1).favoriteId());
     }
 
     public Long getFavoriteCount(Integer reviewId) {
-        return userFavoriteReviewRepository.countByReviewId(reviewId);
+        return favoriteCountService.getCount(reviewId);
+    }
+
+    private void favoriteChanged(Integer userId, Integer reviewId, boolean favorited) {
+        eventPublisher.publishEvent(new FavoriteToggledEvent(userId, reviewId, favorited));
+        if (favorited) {
+            logService.logUserActivity(userId, "Added review " + reviewId + " to favorites");
+            log.info("User {} added review {} to favorites", userId, reviewId);
+        } else {
+            logService.logUserActivity(userId, "Removed review " + reviewId + " from favorites");
+            log.info("User {} removed review {} from favorites", userId, reviewId);
+        }
+    }
+
+    private void requireReview(Integer reviewId) {
+        if (!reviewRepository.existsById(reviewId)) {
+            throw new RuntimeException("Review not found with ID: " + reviewId);
+        }
+    }
+
+    /**
+     * The authenticated principal already carries the user loaded by the JWT filter, the lookup by username
+     * is only needed for other kinds of principals.
+     */
+    private Integer resolveUserId(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return userDetails.getUser().getId();
+        }
+        String username = principal.getName();
+        return userRepository.findByUsername(username)
+                .map(User::getId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
 
     @Transactional
     public void removeAllUserFavorites(Integer userId) {
+        for (UserFavoriteReview favorite : userFavoriteReviewRepository.findByUserId(userId)) {
+            eventPublisher.publishEvent(new FavoriteToggledEvent(userId, favorite.getReviewId(), false));
+        }
         userFavoriteReviewRepository.deleteByUserId(userId);
         log.info("Removed all favorite reviews for user {}", userId);
     }
 
     @Transactional
     public void removeAllFavoritesForReview(Integer reviewId) {
+        for (Integer userId : userFavoriteReviewRepository.findUserIdsByReviewId(reviewId)) {
+            eventPublisher.publishEvent(new FavoriteToggledEvent(userId, reviewId, false));
+        }
         userFavoriteReviewRepository.deleteByReviewId(reviewId);
         log.info("Removed all favorites for review {}", reviewId);
     }
@@ -0,0 +1,327 @@
+package com.example.demo.service;
+
+import com.example.demo.event.UserChangedEvent;
+import com.example.demo.repository.UserJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Substring search over usernames and emails from an in-memory trigram index. Every trigram maps to an
+ * {@link IntBitmap} of the users containing it, a query intersects the bitmaps of its trigrams, rarest first,
+ * and only the remaining candidates are checked and ranked. The index is loaded at startup and follows
+ * committed user changes. Users registered on other nodes are picked up by polling for ids above the highest
+ * one read, a periodic full reload catches up on their updates and deletions.
+ */
+@Slf4j
+@Service
+public class UserSearchService {
+    public static final int MIN_QUERY_LENGTH = 2;
+    public static final int MAX_PAGE_SIZE = 100;
+    // Deepest result reachable through pagination, keeps the ranking heap small for very broad queries
+    public static final int MAX_RESULTS = 1000;
+
+    // Marks the start of a field, so that two character queries can still use the index as a prefix search
+    private static final char START = '\u0002';
+    private static final Comparator<Match> BY_RANK = Comparator.comparingInt(Match::rank)
+            .thenComparingInt(match -> match.username().length())
+            .thenComparing(Match::username)
+            .thenComparingInt(Match::id);
+
+    private final UserJdbcRepository userJdbcRepository;
+
+    private volatile Map<Integer, Document> documents = new ConcurrentHashMap<>();
+    private volatile Map<Long, IntBitmap> postings = new ConcurrentHashMap<>();
+    // Keeps loads and polls from overlapping, both record the changes committed while they read
+    private final Object refreshLock = new Object();
+    // Changes committed while the index is loading, replayed on top of the loaded state
+    private List<Runnable> changesDuringLoad;
+    // Highest user id read from the database
+    private volatile int maxId;
+    private volatile boolean loaded;
+
+    public record UserMatch(Integer id, String username) {
+    }
+
+    public record SearchResult(List<UserMatch> users, int total) {
+    }
+
+    private record Document(String username, String usernameKey, String emailKey) {
+    }
+
+    private record Match(int id, String username, int rank) {
+    }
+
+    public UserSearchService(UserJdbcRepository userJdbcRepository) {
+        this.userJdbcRepository = userJdbcRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (refreshLock) {
+            startRecording();
+            long started = System.currentTimeMillis();
+            try {
+                Map<Integer, Document> loadedDocuments = new ConcurrentHashMap<>();
+                Map<Long, IntBitmap.Builder> builders = new HashMap<>();
+                int[] highest = {0};
+                userJdbcRepository.readSearchFields(0, fields -> {
+                    Document document = document(fields.username(), fields.email());
+                    loadedDocuments.put(fields.id(), document);
+                    highest[0] = fields.id();
+                    // Rows arrive ordered by id, so every builder receives ascending values
+                    for (long trigram : trigrams(document)) {
+                        builders.computeIfAbsent(trigram, key -> new IntBitmap.Builder()).add(fields.id());
+                    }
+                });
+                Map<Long, IntBitmap> loadedPostings = new ConcurrentHashMap<>(builders.size() * 2);
+                builders.forEach((trigram, builder) -> loadedPostings.put(trigram, builder.build()));
+
+                synchronized (this) {
+                    documents = loadedDocuments;
+                    postings = loadedPostings;
+                    replayRecorded();
+                    maxId = highest[0];
+                    loaded = true;
+                }
+                log.info("Loaded user search index in {} ms: {} users, {} trigrams",
+                        System.currentTimeMillis() - started, loadedDocuments.size(), loadedPostings.size());
+            } catch (RuntimeException e) {
+                stopRecording();
+                log.error(loaded ? "Failed to reload the user search index, keeping the current one"
+                        : "Failed to load the user search index, users are searched in the database", e);
+            }
+        }
+    }
+
+    /**
+     * Reloads the whole index, catching up on users other nodes updated or deleted. Retries a failed initial load.
+     */
+    @Scheduled(initialDelayString = "${app.user-search.reload-interval:PT1H}",
+            fixedDelayString = "${app.user-search.reload-interval:PT1H}")
+    public void reloadScheduled() {
+        load();
+    }
+
+    /**
+     * Adds the users registered since the last load or poll, e.g. on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${app.user-search.poll-interval:PT15S}")
+    public void pollNewUsers() {
+        if (!loaded) {
+            return;
+        }
+        synchronized (refreshLock) {
+            startRecording();
+            try {
+                List<UserJdbcRepository.SearchFields> added = new ArrayList<>();
+                userJdbcRepository.readSearchFields(maxId, added::add);
+                synchronized (this) {
+                    for (UserJdbcRepository.SearchFields fields : added) {
+                        setUser(fields.id(), document(fields.username(), fields.email()));
+                        maxId = Math.max(maxId, fields.id());
+                    }
+                    replayRecorded();
+                }
+            } catch (RuntimeException e) {
+                stopRecording();
+                log.warn("Failed to poll for new users, retrying later", e);
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Users whose username or email contains the query, case insensitive. Queries of two characters match
+     * the start of the username or email only. Exact usernames rank first, then username prefixes,
+     * username matches, email prefixes and other email matches, shorter usernames first within each.
+     */
+    public SearchResult search(String query, int page, int size) {
+        String key = normalize(query);
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int offset = Math.max(0, page) * limit;
+        if (key.length() < MIN_QUERY_LENGTH || offset >= MAX_RESULTS) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        boolean prefixOnly = key.length() < 3;
+        IntBitmap candidates = candidates(prefixOnly ? START + key : key);
+        Map<Integer, Document> current = documents;
+        int wanted = Math.min(offset + limit, MAX_RESULTS);
+        // Max-heap of the best matches, the worst of them on top
+        PriorityQueue<Match> best = new PriorityQueue<>(wanted + 1, BY_RANK.reversed());
+        int[] total = {0};
+        candidates.forEach(id -> {
+            Document document = current.get(id);
+            int rank = document != null ? rank(document, key, prefixOnly) : -1;
+            if (rank < 0) {
+                return;
+            }
+            total[0]++;
+            if (best.size() < wanted || isBetter(rank, document.username(), best.peek())) {
+                best.add(new Match(id, document.username(), rank));
+                if (best.size() > wanted) {
+                    best.poll();
+                }
+            }
+        });
+
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(BY_RANK);
+        List<UserMatch> users = ranked.subList(Math.min(offset, ranked.size()), ranked.size()).stream()
+                .map(match -> new UserMatch(match.id(), match.username()))
+                .toList();
+        return new SearchResult(users, total[0]);
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        Integer userId = event.user().getId();
+        if (event.type() == UserChangedEvent.Type.DELETED) {
+            change(() -> setUser(userId, null));
+        } else {
+            Document document = document(event.user().getUsername(), event.user().getEmail());
+            change(() -> setUser(userId, document));
+        }
+    }
+
+    private synchronized void change(Runnable change) {
+        if (changesDuringLoad != null) {
+            changesDuringLoad.add(change);
+        }
+        change.run();
+    }
+
+    private synchronized void startRecording() {
+        changesDuringLoad = new ArrayList<>();
+    }
+
+    private synchronized void stopRecording() {
+        changesDuringLoad = null;
+    }
+
+    private void replayRecorded() {
+        changesDuringLoad.forEach(Runnable::run);
+        changesDuringLoad = null;
+    }
+
+    /**
+     * Sets the final state of a user, so replaying a change the load already saw has no effect.
+     */
+    private void setUser(Integer userId, Document document) {
+        Document previous = document != null ? documents.put(userId, document) : documents.remove(userId);
+        Set<Long> removed = previous != null ? trigrams(previous) : new HashSet<>();
+        Set<Long> added = document != null ? trigrams(document) : new HashSet<>();
+        Set<Long> unchanged = new HashSet<>(removed);
+        unchanged.retainAll(added);
+        removed.removeAll(unchanged);
+        added.removeAll(unchanged);
+
+        for (long trigram : removed) {
+            postings.computeIfPresent(trigram, (key, users) -> {
+                IntBitmap remaining = users.without(userId);
+                return remaining.isEmpty() ? null : remaining;
+            });
+        }
+        for (long trigram : added) {
+            postings.compute(trigram, (key, users) -> (users == null ? IntBitmap.EMPTY : users).with(userId));
+        }
+    }
+
+    /**
+     * Users containing every trigram of the text. The smallest posting lists are intersected first,
+     * the intersection only shrinks from there.
+     */
+    private IntBitmap candidates(String text) {
+        Map<Long, IntBitmap> current = postings;
+        List<IntBitmap> lists = new ArrayList<>();
+        for (long trigram : trigrams(text)) {
+            IntBitmap users = current.get(trigram);
+            if (users == null) {
+                return IntBitmap.EMPTY;
+            }
+            lists.add(users);
+        }
+        lists.sort(Comparator.comparingInt(IntBitmap::cardinality));
+        IntBitmap result = lists.get(0);
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result = result.and(lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Cheap pre-check against the worst kept match, most candidates of a broad query fail it on the rank
+     * or length and never allocate a match.
+     */
+    private static boolean isBetter(int rank, String username, Match worst) {
+        if (rank != worst.rank()) {
+            return rank < worst.rank();
+        }
+        if (username.length() != worst.username().length()) {
+            return username.length() < worst.username().length();
+        }
+        return true;
+    }
+
+    /**
+     * Lower ranks are better, -1 when the candidate does not actually contain the query.
+     */
+    private static int rank(Document document, String key, boolean prefixOnly) {
+        if (document.usernameKey().equals(key)) {
+            return 0;
+        }
+        if (document.usernameKey().startsWith(key)) {
+            return 1;
+        }
+        if (!prefixOnly && document.usernameKey().contains(key)) {
+            return 2;
+        }
+        if (document.emailKey().startsWith(key)) {
+            return 3;
+        }
+        if (!prefixOnly && document.emailKey().contains(key)) {
+            return 4;
+        }
+        return -1;
+    }
+
+    private static Document document(String username, String email) {
+        return new Document(username, normalize(username), normalize(email));
+    }
+
+    private static Set<Long> trigrams(Document document) {
+        Set<Long> trigrams = trigrams(START + document.usernameKey());
+        trigrams.addAll(trigrams(START + document.emailKey()));
+        return trigrams;
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.strip().toLowerCase(Locale.ROOT);
+    }
+}
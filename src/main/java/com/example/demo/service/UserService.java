@@ -1,9 +1,19 @@
 package com.example.demo.service;
 
+import com.example.demo.event.UserChangedEvent;
 import com.example.demo.model.User;
+import com.example.demo.model.UserSummary;
+import com.example.demo.repository.UserJdbcRepository;
 import com.example.demo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -24,10 +34,18 @@ import java.util.Optional;
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int MAX_LIST_PAGE_SIZE = 200;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final LogService logService;
     private final UserFavoriteReviewService userFavoriteReviewService;
+    private final UserSearchService userSearchService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserJdbcRepository userJdbcRepository;
+
+    public record UserPage(List<UserSummary> users, Integer nextCursor) {
+    }
 
     public Authentication authenticateUser(String username, String password,
                                            AuthenticationManager authenticationManager) {
@@ -43,15 +61,35 @@ public class UserService {
         var user = new User(username, passwordEncoder.encode(password), email);
         user.setRole(User.Role.ROLE_USER);
         User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.CREATED, savedUser));
 
         logService.logUserActivity(savedUser.getId(), "User registered");
 
         return true;
     }
 
+    /**
+     * One page of the admin user list ordered by id. Pass the last id of the previous page as
+     * {@code afterId} of the filter to continue.
+     */
     @PreAuthorize("hasRole('ADMIN')")
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public UserPage listUsers(UserJdbcRepository.UserFilter filter, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIST_PAGE_SIZE));
+        List<UserSummary> users = userJdbcRepository.findUsers(filter, pageSize + 1);
+        if (users.size() <= pageSize) {
+            return new UserPage(users, null);
+        }
+        List<UserSummary> page = users.subList(0, pageSize);
+        return new UserPage(page, page.get(pageSize - 1).id());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            userJdbcRepository.createUsernamePrefixIndex();
+        } catch (DataAccessException e) {
+            log.warn("Could not create the username prefix index, prefix filters scan the users table", e);
+        }
     }
 
     public Optional<User> getUserById(Integer userId) {
@@ -62,8 +100,24 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
 
-    public List<User> searchUsers(String query) {
-        return userRepository.findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCase(query, query);
+    /**
+     * Searches usernames and emails through the in-memory index, or with a paged database scan
+     * while the index is not loaded.
+     */
+    public UserSearchService.SearchResult searchUsers(String query, int page, int size) {
+        if (userSearchService.isLoaded()) {
+            return userSearchService.search(query, page, size);
+        }
+        String term = query == null ? "" : query.strip();
+        if (term.length() < UserSearchService.MIN_QUERY_LENGTH) {
+            return new UserSearchService.SearchResult(List.of(), 0);
+        }
+        Page<User> users = userRepository.findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCase(term, term,
+                PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, UserSearchService.MAX_PAGE_SIZE)),
+                        Sort.by("username")));
+        return new UserSearchService.SearchResult(users.stream()
+                .map(user -> new UserSearchService.UserMatch(user.getId(), user.getUsername()))
+                .toList(), (int) Math.min(users.getTotalElements(), Integer.MAX_VALUE));
     }
 
     @Transactional
@@ -89,6 +143,7 @@ public class UserService {
 
         targetUser.setRole(role);
         User updatedUser = userRepository.save(targetUser);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.UPDATED, updatedUser));
 
         logService.logAdminActivity(admin.getId(),
                 "Updated user " + targetUser.getUsername() + " role to " + newRole);
@@ -119,6 +174,7 @@ public class UserService {
         }
 
         User updatedUser = userRepository.save(userToUpdate);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.UPDATED, updatedUser));
 
         logService.logUserActivity(currentUser.getId(), "Updated profile information");
 
@@ -154,6 +210,7 @@ public class UserService {
         userFavoriteReviewService.removeAllUserFavorites(userId);
 
         userRepository.delete(userToDelete);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.DELETED, userToDelete));
 
         if (isAdmin && !currentUser.getId().equals(userId)) {
             logService.logAdminActivity(currentUser.getId(),
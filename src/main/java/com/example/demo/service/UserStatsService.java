@@ -0,0 +1,319 @@
+package com.example.demo.service;
+
+import com.example.demo.event.FavoriteToggledEvent;
+import com.example.demo.event.ReviewChangedEvent;
+import com.example.demo.event.ReviewsImportedEvent;
+import com.example.demo.event.UserChangedEvent;
+import com.example.demo.model.UserStats;
+import com.example.demo.repository.UserFavoriteJdbcRepository;
+import com.example.demo.repository.UserStatsJdbcRepository;
+import com.example.demo.repository.UserStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Per-user review and favorite counts and last activity in the {@code userStats} table. Committed changes are
+ * collected in memory and written in batches as deltas, users whose counts cannot be derived from a delta
+ * are recomputed from the source tables. A repair job recomputes all users in parallel and corrects
+ * whatever drifted, e.g. the changes of a node that stopped before flushing.
+ */
+@Slf4j
+@Service
+public class UserStatsService {
+    private static final int REPAIR_CHUNK_SIZE = 1000;
+
+    private final UserStatsRepository userStatsRepository;
+    private final UserStatsJdbcRepository userStatsJdbcRepository;
+    private final TransactionTemplate transaction;
+    private final int repairThreads;
+
+    // Entries are only modified inside compute, so draining one with remove never loses a change
+    private final Map<Integer, PendingChange> pendingChanges = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> pendingReceived = new ConcurrentHashMap<>();
+    private final Set<Integer> usersToRecompute = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    // Set while a repair recomputes all users, changes then stay pending and are recomputed when it finished
+    private volatile boolean repairing;
+
+    public record Stats(long reviewCount, long favoritesGiven, long favoritesReceived, ZonedDateTime lastActivity) {
+    }
+
+    private static class PendingChange {
+        private long reviews;
+        private long favoritesGiven;
+        private long lastActivity = Long.MIN_VALUE;
+    }
+
+    public UserStatsService(UserStatsRepository userStatsRepository, UserStatsJdbcRepository userStatsJdbcRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.user-stats.repair-threads:4}") int repairThreads) {
+        this.userStatsRepository = userStatsRepository;
+        this.userStatsJdbcRepository = userStatsJdbcRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.repairThreads = Math.max(1, repairThreads);
+    }
+
+    /**
+     * Stats of a user by primary key. A user without a row yet, e.g. before the first repair, is computed on demand
+     * without writing it, the row is created by the next flush so pending deltas are not applied on top of it.
+     */
+    public Optional<Stats> getStats(Integer userId) {
+        Optional<UserStats> stats = userStatsRepository.findById(userId);
+        if (stats.isPresent()) {
+            return stats.map(row -> new Stats(row.getReviewCount(), row.getFavoritesGiven(),
+                    row.getFavoritesReceived(), row.getLastActivity()));
+        }
+        UserStatsJdbcRepository.UserStatsRow computed = userStatsJdbcRepository.compute(userId);
+        if (computed == null) {
+            return Optional.empty();
+        }
+        usersToRecompute.add(userId);
+        return Optional.of(new Stats(computed.reviewCount(), computed.favoritesGiven(), computed.favoritesReceived(),
+                computed.lastActivity() != null ? computed.lastActivity().toZonedDateTime() : null));
+    }
+
+    /**
+     * Records an activity of the user, within a transaction once it committed.
+     */
+    public void recordActivity(Integer userId, ZonedDateTime time) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change(userId, 0, 0, time);
+                }
+            });
+            return;
+        }
+        change(userId, 0, 0, time);
+    }
+
+    @TransactionalEventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        Integer authorId = event.review().getUserID();
+        switch (event.type()) {
+            case CREATED -> change(authorId, 1, 0, null);
+            // The favorites of the review went with it, the author's received count is recomputed
+            case DELETED -> usersToRecompute.add(authorId);
+            default -> {
+                // Edits change no counts, the activity is recorded through the log
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFavoriteToggled(FavoriteToggledEvent event) {
+        long delta = event.favorited() ? 1 : -1;
+        change(event.userId(), 0, delta, null);
+        pendingReceived.merge(event.reviewId(), delta, Long::sum);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewsImported(ReviewsImportedEvent event) {
+        usersToRecompute.addAll(event.userIds());
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        Integer userId = event.user().getId();
+        switch (event.type()) {
+            case CREATED -> usersToRecompute.add(userId);
+            case DELETED -> {
+                synchronized (flushLock) {
+                    pendingChanges.remove(userId);
+                    usersToRecompute.remove(userId);
+                    userStatsJdbcRepository.delete(userId);
+                }
+            }
+            default -> {
+                // Role and profile changes do not affect the stats
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.user-stats.flush-interval:PT10S}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (!repairing) {
+                flushPending(false);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the stats of all users, chunks of the user id range run in parallel as one statement each.
+     * Changes committed during the repair may or may not be part of it, they stay pending and their users are
+     * recomputed once more afterwards instead of adding their deltas. The flush lock is only held to drain
+     * before and after, stats lookups and user deletions go on meanwhile.
+     */
+    @Scheduled(initialDelayString = "${app.user-stats.repair-initial-delay:PT1M}",
+            fixedDelayString = "${app.user-stats.repair-interval:PT24H}")
+    public void repair() {
+        synchronized (flushLock) {
+            flushPending(false);
+            repairing = true;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            int corrected = recomputeAll();
+            int removed = userStatsJdbcRepository.deleteOrphans();
+            log.info("Repaired user stats in {} ms, corrected {} rows, removed {} orphaned rows",
+                    System.currentTimeMillis() - started, corrected, removed);
+        } catch (RuntimeException e) {
+            log.error("Failed to repair user stats", e);
+        } finally {
+            synchronized (flushLock) {
+                repairing = false;
+                flushPending(true);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (flushLock) {
+            flushPending(repairing);
+        }
+    }
+
+    private void change(Integer userId, long reviews, long favoritesGiven, ZonedDateTime activity) {
+        pendingChanges.compute(userId, (id, pending) -> {
+            PendingChange change = pending != null ? pending : new PendingChange();
+            change.reviews += reviews;
+            change.favoritesGiven += favoritesGiven;
+            if (activity != null) {
+                change.lastActivity = Math.max(change.lastActivity, activity.toInstant().toEpochMilli());
+            }
+            return change;
+        });
+    }
+
+    /**
+     * Writes the collected changes in one transaction. With {@code recomputeAll} every affected user is
+     * recomputed instead of adding deltas.
+     */
+    private void flushPending(boolean recomputeAll) {
+        Map<Integer, PendingChange> changes = new HashMap<>();
+        for (Integer userId : new ArrayList<>(pendingChanges.keySet())) {
+            PendingChange change = pendingChanges.remove(userId);
+            if (change != null) {
+                changes.put(userId, change);
+            }
+        }
+        Map<Integer, Long> received = new HashMap<>();
+        for (Integer reviewId : new ArrayList<>(pendingReceived.keySet())) {
+            Long delta = pendingReceived.remove(reviewId);
+            if (delta != null && delta != 0) {
+                received.put(reviewId, delta);
+            }
+        }
+        Set<Integer> recompute = new HashSet<>();
+        for (Integer userId : new ArrayList<>(usersToRecompute)) {
+            usersToRecompute.remove(userId);
+            recompute.add(userId);
+        }
+        if (changes.isEmpty() && received.isEmpty() && recompute.isEmpty()) {
+            return;
+        }
+
+        try {
+            transaction.executeWithoutResult(status -> {
+                List<Integer> reviewsToRecompute = new ArrayList<>();
+                if (recomputeAll) {
+                    recompute.addAll(changes.keySet());
+                    reviewsToRecompute.addAll(received.keySet());
+                } else {
+                    List<UserStatsJdbcRepository.UserDelta> deltas = new ArrayList<>();
+                    changes.forEach((userId, change) -> {
+                        if (!recompute.contains(userId)) {
+                            deltas.add(new UserStatsJdbcRepository.UserDelta(userId, change.reviews,
+                                    change.favoritesGiven, toTime(change.lastActivity)));
+                        }
+                    });
+                    if (!deltas.isEmpty()) {
+                        recompute.addAll(userStatsJdbcRepository.addDeltas(deltas));
+                    }
+                    if (!received.isEmpty()) {
+                        reviewsToRecompute.addAll(userStatsJdbcRepository.addFavoritesReceived(received));
+                    }
+                }
+                userStatsJdbcRepository.recomputeAuthors(reviewsToRecompute);
+                userStatsJdbcRepository.recomputeUsers(recompute);
+            });
+            log.debug("Persisted stats changes of {} users and {} reviews", changes.size() + recompute.size(),
+                    received.size());
+        } catch (DataAccessException e) {
+            // Keep the changes for the next attempt
+            changes.forEach((userId, change) -> pendingChanges.compute(userId, (id, pending) -> {
+                if (pending == null) {
+                    return change;
+                }
+                pending.reviews += change.reviews;
+                pending.favoritesGiven += change.favoritesGiven;
+                pending.lastActivity = Math.max(pending.lastActivity, change.lastActivity);
+                return pending;
+            }));
+            received.forEach((reviewId, delta) -> pendingReceived.merge(reviewId, delta, Long::sum));
+            usersToRecompute.addAll(recompute);
+            log.warn("Failed to persist user stats, retrying later", e);
+        }
+    }
+
+    private int recomputeAll() {
+        UserFavoriteJdbcRepository.IdRange range = userStatsJdbcRepository.findUserIdRange();
+        if (range == null) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(repairThreads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (long from = range.min(); from <= range.max(); from += REPAIR_CHUNK_SIZE) {
+                int chunkFrom = (int) from;
+                int chunkTo = (int) Math.min((long) range.max() + 1, from + REPAIR_CHUNK_SIZE);
+                futures.add(executor.submit(() -> userStatsJdbcRepository.recomputeRange(chunkFrom, chunkTo)));
+            }
+            int corrected = 0;
+            for (Future<Integer> future : futures) {
+                corrected += future.get();
+            }
+            return corrected;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while repairing user stats", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to repair user stats", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static OffsetDateTime toTime(long epochMillis) {
+        return epochMillis == Long.MIN_VALUE ? null : Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CompletionTrieTest {
+    private static final int TOP_N = 3;
+
+    @Test
+    void splitsEdgesWhereKeysDiverge() {
+        CompletionTrie trie = CompletionTrie.empty(TOP_N)
+                .put("cart", "Cart", 1)
+                .put("car", "Car", 5)
+                .put("cat", "Cat", 3);
+
+        assertEquals(3, trie.size());
+        assertEquals(texts("Car", "Cat", "Cart"), texts(trie.complete("ca", 10)));
+        assertEquals(texts("Car", "Cart"), texts(trie.complete("car", 10)));
+        assertEquals(texts("Cart"), texts(trie.complete("cart", 10)));
+        assertEquals(texts("Cat"), texts(trie.complete("cat", 10)));
+        assertEquals(List.of(), trie.complete("cab", 10));
+        assertEquals(List.of(), trie.complete("carts", 10));
+    }
+
+    @Test
+    void completesInsideAnEdgeLabel() {
+        CompletionTrie trie = CompletionTrie.empty(TOP_N).put("matrix", "The Matrix", 2);
+
+        assertEquals(texts("The Matrix"), texts(trie.complete("m", 10)));
+        assertEquals(texts("The Matrix"), texts(trie.complete("mat", 10)));
+        assertEquals(List.of(), trie.complete("mats", 10));
+    }
+
+    @Test
+    void keepsTheBestCompletionsPerNode() {
+        CompletionTrie trie = CompletionTrie.empty(TOP_N)
+                .put("a1", "A1", 1)
+                .put("a2", "A2", 4)
+                .put("a3", "A3", 2)
+                .put("a4", "A4", 4)
+                .put("a5", "A5", 3);
+
+        assertEquals(texts("A2", "A4", "A5"), texts(trie.complete("a", 10)));
+        assertEquals(texts("A2", "A4"), texts(trie.complete("a", 2)));
+        assertEquals(texts("A2", "A4", "A5"), texts(trie.put("a3", "A3", 1).complete("a", 10)));
+        assertEquals(texts("A4", "A2", "A5"), texts(trie.put("a4", "A4", 9).complete("a", 10)));
+    }
+
+    @Test
+    void removesAndCompactsNodes() {
+        CompletionTrie trie = CompletionTrie.empty(TOP_N)
+                .put("car", "Car", 5)
+                .put("cart", "Cart", 1)
+                .put("cat", "Cat", 3);
+
+        CompletionTrie withoutCat = trie.remove("cat");
+        assertEquals(2, withoutCat.size());
+        assertEquals(texts("Car", "Cart"), texts(withoutCat.complete("ca", 10)));
+
+        // "car" loses its completion and merges into its only child
+        CompletionTrie onlyCart = withoutCat.remove("car");
+        assertEquals(1, onlyCart.size());
+        assertEquals(texts("Cart"), texts(onlyCart.complete("c", 10)));
+        assertEquals(texts("Cart"), texts(onlyCart.complete("cart", 10)));
+        assertEquals(onlyCart.complete("c", 10), CompletionTrie.empty(TOP_N).put("cart", "Cart", 1).complete("c", 10));
+
+        CompletionTrie empty = onlyCart.remove("cart");
+        assertEquals(0, empty.size());
+        assertEquals(List.of(), empty.complete("c", 10));
+
+        // The original is untouched
+        assertEquals(texts("Car", "Cat", "Cart"), texts(trie.complete("c", 10)));
+    }
+
+    @Test
+    void ignoresRemovalOfUnknownKeys() {
+        CompletionTrie trie = CompletionTrie.empty(TOP_N).put("car", "Car", 5).put("cart", "Cart", 1);
+
+        assertSame(trie, trie.remove("ca"));
+        assertSame(trie, trie.remove("cars"));
+        assertSame(trie, trie.remove("dog"));
+    }
+
+    @Test
+    void removesKeysWithoutWeight() {
+        CompletionTrie trie = CompletionTrie.empty(TOP_N).put("car", "Car", 5).put("cat", "Cat", 3);
+
+        CompletionTrie removed = trie.put("car", "Car", 0);
+        assertEquals(1, removed.size());
+        assertEquals(texts("Cat"), texts(removed.complete("ca", 10)));
+    }
+
+    @Test
+    void buildsTheSameTrieAsRepeatedPuts() {
+        Random random = new Random(7);
+        Map<String, CompletionTrie.Completion> completions = new HashMap<>();
+        CompletionTrie expected = CompletionTrie.empty(TOP_N);
+        for (int i = 0; i < 2000; i++) {
+            // Short keys over a small alphabet share many prefixes and are prefixes of each other
+            StringBuilder key = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int c = 0; c < length; c++) {
+                key.append((char) ('a' + random.nextInt(3)));
+            }
+            CompletionTrie.Completion completion = new CompletionTrie.Completion(key.toString().toUpperCase(),
+                    1 + random.nextInt(100));
+            completions.put(key.toString(), completion);
+            expected = expected.put(key.toString(), completion.text(), completion.weight());
+        }
+
+        CompletionTrie built = CompletionTrie.build(completions, TOP_N);
+        assertEquals(expected.size(), built.size());
+        for (String key : completions.keySet()) {
+            for (int length = 1; length <= key.length(); length++) {
+                String prefix = key.substring(0, length);
+                assertEquals(expected.complete(prefix, 10), built.complete(prefix, 10), prefix);
+            }
+        }
+
+        // The built trie keeps working with changes
+        String anyKey = completions.keySet().iterator().next();
+        assertEquals(expected.remove(anyKey).complete(anyKey.substring(0, 1), 10),
+                built.remove(anyKey).complete(anyKey.substring(0, 1), 10));
+    }
+
+    @Test
+    void buildsAnEmptyTrie() {
+        CompletionTrie trie = CompletionTrie.build(Map.of(), TOP_N);
+
+        assertEquals(0, trie.size());
+        assertEquals(List.of(), trie.complete("a", 10));
+        assertEquals(texts("A"), texts(trie.put("a", "A", 1).complete("a", 10)));
+    }
+
+    private static List<String> texts(String... texts) {
+        return List.of(texts);
+    }
+
+    private static List<String> texts(List<CompletionTrie.Completion> completions) {
+        return completions.stream().map(CompletionTrie.Completion::text).toList();
+    }
+}
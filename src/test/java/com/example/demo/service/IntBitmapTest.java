@@ -0,0 +1,173 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntBitmapTest {
+    // Key, container reference and the group's values as char[] or long[]
+    private static final long GROUP_OVERHEAD = 2 + 4;
+    private static final long BITMAP_CONTAINER = 1024 * 8;
+
+    @Test
+    void switchesContainersAt4096Values() {
+        IntBitmap bitmap = IntBitmap.EMPTY;
+        for (int i = 0; i < 4095; i++) {
+            bitmap = bitmap.with(i * 2);
+        }
+        assertEquals(GROUP_OVERHEAD + 4095 * 2, bitmap.sizeInBytes());
+
+        IntBitmap full = bitmap.with(8190);
+        IntBitmap dense = full.with(1);
+        assertEquals(4097, dense.cardinality());
+        assertEquals(GROUP_OVERHEAD + BITMAP_CONTAINER, dense.sizeInBytes());
+        assertTrue(dense.contains(1));
+        assertTrue(dense.contains(8190));
+        assertFalse(dense.contains(3));
+
+        IntBitmap backToFull = dense.without(1);
+        assertEquals(4096, backToFull.cardinality());
+        assertArrayEquals(full.toArray(), backToFull.toArray());
+
+        IntBitmap sparse = backToFull.without(8190);
+        assertEquals(GROUP_OVERHEAD + 4095 * 2, sparse.sizeInBytes());
+        assertArrayEquals(bitmap.toArray(), sparse.toArray());
+    }
+
+    @Test
+    void changesLeaveTheOriginalUntouched() {
+        IntBitmap original = IntBitmap.EMPTY.with(5).with(70_000);
+        IntBitmap added = original.with(6);
+        IntBitmap removed = original.without(70_000);
+
+        assertArrayEquals(new int[]{5, 70_000}, original.toArray());
+        assertArrayEquals(new int[]{5, 6, 70_000}, added.toArray());
+        assertArrayEquals(new int[]{5}, removed.toArray());
+        assertSame(original, original.with(5));
+        assertSame(original, original.without(7));
+        assertSame(IntBitmap.EMPTY, removed.without(5));
+    }
+
+    @Test
+    void removesEmptyGroups() {
+        IntBitmap bitmap = IntBitmap.EMPTY.with(1).with(1 << 16).with(2 << 16);
+        IntBitmap withoutMiddle = bitmap.without(1 << 16);
+
+        assertArrayEquals(new int[]{1, 2 << 16}, withoutMiddle.toArray());
+        assertEquals(2 * (GROUP_OVERHEAD + 2), withoutMiddle.sizeInBytes());
+        assertFalse(withoutMiddle.contains(1 << 16));
+    }
+
+    @Test
+    void builderMatchesRepeatedWith() {
+        Random random = new Random(42);
+        TreeSet<Integer> values = new TreeSet<>();
+        // Sparse groups, a dense group and a group right at the array limit
+        for (int i = 0; i < 2000; i++) {
+            values.add(random.nextInt(1 << 22));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            values.add((5 << 16) + random.nextInt(1 << 16));
+        }
+        for (int i = 0; i < 4096; i++) {
+            values.add((7 << 16) + i * 16);
+        }
+
+        IntBitmap.Builder builder = new IntBitmap.Builder();
+        IntBitmap expected = IntBitmap.EMPTY;
+        for (int value : values) {
+            builder.add(value);
+            expected = expected.with(value);
+        }
+        IntBitmap built = builder.build();
+
+        assertEquals(values.size(), built.cardinality());
+        assertArrayEquals(expected.toArray(), built.toArray());
+        assertArrayEquals(values.stream().mapToInt(Integer::intValue).toArray(), built.toArray());
+        assertEquals(expected.sizeInBytes(), built.sizeInBytes());
+    }
+
+    @Test
+    void builderFlushesTheLastGroup() {
+        IntBitmap built = new IntBitmap.Builder().add(3).add(1 << 16).add((1 << 16) + 1).build();
+
+        assertArrayEquals(new int[]{3, 1 << 16, (1 << 16) + 1}, built.toArray());
+        assertSame(IntBitmap.EMPTY, new IntBitmap.Builder().build());
+    }
+
+    @Test
+    void builderRejectsValuesOutOfOrder() {
+        IntBitmap.Builder builder = new IntBitmap.Builder().add(10);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add(10));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(9));
+        assertThrows(IllegalArgumentException.class, () -> new IntBitmap.Builder().add(-1));
+    }
+
+    @Test
+    void intersectsMixedContainers() {
+        IntBitmap.Builder sparseBuilder = new IntBitmap.Builder();
+        IntBitmap.Builder denseBuilder = new IntBitmap.Builder();
+        List<Integer> expected = new ArrayList<>();
+        for (int group = 0; group < 4; group++) {
+            int base = group << 16;
+            // Groups 0 and 1 are dense on the left, groups 0 and 2 on the right
+            for (int low = 0; low < 1 << 16; low += group % 2 == 0 ? 3 : 5) {
+                sparseBuilder.add(base + low);
+            }
+            for (int low = 0; low < 1 << 16; low += group < 2 ? 2 : 7) {
+                denseBuilder.add(base + low);
+            }
+        }
+        IntBitmap left = sparseBuilder.build();
+        IntBitmap right = denseBuilder.build();
+        left.forEach(value -> {
+            if (right.contains(value)) {
+                expected.add(value);
+            }
+        });
+
+        IntBitmap common = left.and(right);
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), common.toArray());
+        assertEquals(expected.size(), left.andCardinality(right));
+        assertArrayEquals(common.toArray(), right.and(left).toArray());
+        assertSame(IntBitmap.EMPTY, left.and(IntBitmap.EMPTY));
+    }
+
+    @Test
+    void visitsValuesInAscendingOrder() {
+        IntBitmap bitmap = IntBitmap.EMPTY;
+        int[] values = {Integer.MAX_VALUE, 70_000, 0, 65_535, 65_536, 12};
+        for (int value : values) {
+            bitmap = bitmap.with(value);
+        }
+        for (int i = 0; i < 5000; i++) {
+            bitmap = bitmap.with((3 << 16) + i * 3);
+        }
+
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEach(visited::add);
+        List<Integer> sorted = new ArrayList<>(visited);
+        sorted.sort(null);
+        assertEquals(sorted, visited);
+        assertEquals(bitmap.cardinality(), visited.size());
+        assertEquals(0, visited.get(0));
+        assertEquals(Integer.MAX_VALUE, visited.get(visited.size() - 1));
+    }
+
+    @Test
+    void rejectsNegativeValues() {
+        assertThrows(IllegalArgumentException.class, () -> IntBitmap.EMPTY.with(-1));
+        assertFalse(IntBitmap.EMPTY.with(1).contains(-1));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trip against a real S3 compatible server, e.g.
+ * {@code docker run -p 9000:9000 minio/minio server /data} with an existing bucket. Runs when
+ * {@code S3_TEST_ENDPOINT} is set, together with {@code S3_TEST_BUCKET}, {@code S3_TEST_ACCESS_KEY}
+ * and {@code S3_TEST_SECRET_KEY}.
+ */
+@EnabledIfEnvironmentVariable(named = "S3_TEST_ENDPOINT", matches = ".+")
+class S3CoverStorageRoundTripTest {
+    private final String prefix = "round-trip-" + UUID.randomUUID() + "/";
+    private final S3CoverStorage storage = new S3CoverStorage(System.getenv("S3_TEST_ENDPOINT"),
+            System.getenv().getOrDefault("S3_TEST_REGION", "us-east-1"), System.getenv("S3_TEST_BUCKET"),
+            System.getenv("S3_TEST_ACCESS_KEY"), System.getenv("S3_TEST_SECRET_KEY"), true, prefix,
+            DataSize.ofMegabytes(6), DataSize.ofMegabytes(5));
+    private final List<Path> tempFiles = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        List<String> names = new ArrayList<>();
+        storage.list(object -> names.add(object.name()));
+        for (String name : names) {
+            storage.delete(name);
+        }
+        for (Path file : tempFiles) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void storesReadsListsAndDeletes() throws IOException {
+        byte[] content = randomBytes(1024);
+        storage.put("small.jpg", tempFile(content), "image/jpeg");
+
+        CoverStorage.StoredObject stat = storage.stat("small.jpg").orElseThrow();
+        assertEquals(content.length, stat.length());
+        assertTrue(stat.lastModified() > 0);
+        try (InputStream in = storage.get("small.jpg")) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+
+        List<CoverStorage.StoredObject> listed = new ArrayList<>();
+        storage.list(listed::add);
+        assertEquals(List.of("small.jpg"), listed.stream().map(CoverStorage.StoredObject::name).toList());
+        assertEquals(content.length, listed.get(0).length());
+
+        storage.delete("small.jpg");
+        assertFalse(storage.exists("small.jpg"));
+        assertThrows(NoSuchFileException.class, () -> storage.get("small.jpg"));
+    }
+
+    @Test
+    void uploadsLargeFilesInParts() throws IOException {
+        byte[] content = randomBytes(11 * 1024 * 1024);
+        storage.put("large.jpg", tempFile(content), "image/jpeg");
+
+        try (InputStream in = storage.get("large.jpg")) {
+            assertTrue(Arrays.equals(content, in.readAllBytes()));
+        }
+    }
+
+    @Test
+    void servesPresignedUrls() throws Exception {
+        byte[] content = randomBytes(512);
+        storage.put("presigned.jpg", tempFile(content), "image/jpeg");
+
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                        storage.presignedUrl("presigned.jpg", Duration.ofMinutes(5), "public, max-age=60").orElseThrow())
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        assertEquals("public, max-age=60", response.headers().firstValue("Cache-Control").orElse(null));
+        assertArrayEquals(content, response.body());
+    }
+
+    @Test
+    void listsAcrossPages() throws IOException {
+        // More objects than one list response holds
+        Path source = tempFile(randomBytes(16));
+        for (int i = 0; i < 1001; i++) {
+            Path copy = tempFile(Files.readAllBytes(source));
+            storage.put("page-" + i + ".jpg", copy, "image/jpeg");
+        }
+
+        int[] count = {0};
+        storage.list(object -> count[0]++);
+        assertEquals(1001, count[0]);
+    }
+
+    private Path tempFile(byte[] content) throws IOException {
+        Path file = Files.createTempFile("s3-round-trip-", ".bin");
+        tempFiles.add(file);
+        return Files.write(file, content);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}